@@ -0,0 +1,163 @@
+package com.example;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Runs database work for the Library Management System (LMS) GUI on a background thread.
+ * <p>
+ * The work runs on a {@link SwingWorker} thread so the window keeps repainting. If the work takes
+ * longer than a moment, a small dialog shows its progress and offers a Cancel button. When the work
+ * finishes, the result or error is handed back on the Event Dispatch Thread.
+ * </p>
+ * <p>
+ * Cancelling is cooperative: the Cancel button only sets a flag that the work reads through
+ * {@link TaskProgress#isCancelled()} between steps. The thread is never interrupted, so a database
+ * batch in flight either commits or fails as usual, and the work's own result, such as how many rows
+ * were committed before it stopped, is what the user sees.
+ * </p>
+ *
+ * @param <T> the type of result produced by the work
+ */
+class BackgroundTask<T> extends SwingWorker<T, String> {
+    /** Delay before the progress dialog appears, so quick tasks do not flash a window. */
+    private static final int DIALOG_DELAY_MILLIS = 300;
+
+    /**
+     * The work to run in the background.
+     *
+     * @param <T> the type of result produced
+     */
+    interface Work<T> {
+        /**
+         * Runs the work.
+         *
+         * @param progress used to report progress and check for cancellation
+         * @return the result of the work
+         * @throws Exception if the work fails
+         */
+        T run(TaskProgress progress) throws Exception;
+    }
+
+    private final Component parent;
+    private final String title;
+    private final Work<T> work;
+    private final Consumer<T> onSuccess;
+    private final String errorPrefix;
+
+    private final JLabel messageLabel = new JLabel("Working...");
+    private final JProgressBar progressBar = new JProgressBar(0, 100);
+    private JDialog dialog;
+    private Timer dialogTimer;
+    private volatile boolean cancelRequested;
+
+    /** Handed to the work; reports go to the dialog and cancellation is the Cancel button's flag. */
+    private final TaskProgress progress = new TaskProgress() {
+        @Override
+        public void report(String message, int percent) {
+            publishProgress(message, percent);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelRequested;
+        }
+    };
+
+    /**
+     * Creates a task. Call {@link #start()} to run it.
+     *
+     * @param parent      the component the progress dialog and messages are shown over
+     * @param title       the title of the progress dialog
+     * @param work        the work to run in the background
+     * @param onSuccess   called on the Event Dispatch Thread with the result
+     * @param errorPrefix the text shown before the error message if the work fails
+     */
+    BackgroundTask(Component parent, String title, Work<T> work, Consumer<T> onSuccess, String errorPrefix) {
+        this.parent = parent;
+        this.title = title;
+        this.work = work;
+        this.onSuccess = onSuccess;
+        this.errorPrefix = errorPrefix;
+    }
+
+    /**
+     * Starts the work in the background. Must be called on the Event Dispatch Thread.
+     */
+    void start() {
+        progressBar.setIndeterminate(true);
+        dialogTimer = new Timer(DIALOG_DELAY_MILLIS, e -> showDialog());
+        dialogTimer.setRepeats(false);
+        dialogTimer.start();
+        execute();
+    }
+
+    @Override
+    protected T doInBackground() throws Exception {
+        return work.run(progress);
+    }
+
+    /**
+     * Passes a progress report from the work to the dialog.
+     */
+    private void publishProgress(String message, int percent) {
+        publish(message);
+        if (percent >= 0) {
+            setProgress(Math.min(100, percent));
+        }
+    }
+
+    @Override
+    protected void process(List<String> messages) {
+        messageLabel.setText(messages.get(messages.size() - 1));
+        if (getProgress() > 0) {
+            progressBar.setIndeterminate(false);
+            progressBar.setValue(getProgress());
+        }
+    }
+
+    @Override
+    protected void done() {
+        dialogTimer.stop();
+        if (dialog != null) {
+            dialog.dispose();
+        }
+        try {
+            onSuccess.accept(get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            JOptionPane.showMessageDialog(parent, errorPrefix + cause.getMessage());
+        }
+    }
+
+    private void showDialog() {
+        if (isDone()) {
+            return;
+        }
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.addActionListener(e -> {
+            cancelButton.setEnabled(false);
+            messageLabel.setText("Cancelling...");
+            cancelRequested = true; // The work stops at its next check and reports what it completed
+        });
+
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        panel.add(messageLabel, BorderLayout.NORTH);
+        panel.add(progressBar, BorderLayout.CENTER);
+        panel.add(cancelButton, BorderLayout.SOUTH);
+
+        Window owner = parent instanceof Window ? (Window) parent : SwingUtilities.getWindowAncestor(parent);
+        dialog = new JDialog(owner, title, Dialog.ModalityType.MODELESS);
+        dialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        dialog.add(panel);
+        dialog.pack();
+        dialog.setLocationRelativeTo(parent);
+        dialog.setVisible(true);
+    }
+}
@@ -1,5 +1,8 @@
 package com.example;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
 /**
  * Represents a book in the Library Management System (LMS).
  * <p>
@@ -7,15 +10,32 @@ package com.example;
  * </p>
  */
 public class Book {
-    private String bookID;
+    private static final VarHandle AVAILABILITY;
+
+    static {
+        try {
+            AVAILABILITY = MethodHandles.lookup().findVarHandle(Book.class, "availability", boolean.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private LibraryId bookID;
     private String title;
     private String author;
     private String genre;
-    private boolean availability;
+    private volatile boolean availability;
+    private int ordinal = -1; // Position of the book in the owning library's internal tables
 
     /**
      * Constructs a new Book object with the specified details.
      *
+     * <p>
+     * The ID is normally in its 36-character UUID form. A legacy free-form ID is still accepted and mapped
+     * to a fixed ID with {@link LibraryId#of(String)}; the book can be found by either form, but
+     * {@link #getBookID()} returns the UUID form.
+     * </p>
+     *
      * @param bookID      the unique identifier for the book
      * @param title       the title of the book
      * @param author      the author of the book
@@ -23,6 +43,19 @@ public class Book {
      * @param availability the availability status of the book (true if available, false otherwise)
      */
     public Book(String bookID, String title, String author, String genre, boolean availability) {
+        this(LibraryId.of(bookID), title, author, genre, availability);
+    }
+
+    /**
+     * Constructs a new Book object with a compact ID.
+     *
+     * @param bookID      the unique identifier for the book
+     * @param title       the title of the book
+     * @param author      the author of the book
+     * @param genre       the genre of the book
+     * @param availability the availability status of the book (true if available, false otherwise)
+     */
+    public Book(LibraryId bookID, String title, String author, String genre, boolean availability) {
         this.bookID = bookID;
         this.title = title;
         this.author = author;
@@ -36,6 +69,15 @@ public class Book {
      * @return the book ID
      */
     public String getBookID() {
+        return bookID.toString();
+    }
+
+    /**
+     * Retrieves the unique ID of the book in its compact form.
+     *
+     * @return the book ID
+     */
+    public LibraryId getId() {
         return bookID;
     }
 
@@ -110,4 +152,34 @@ public class Book {
     public void setAvailable(boolean availability) {
         this.availability = availability;
     }
+
+    /**
+     * Atomically changes the availability status, but only if it currently has the expected value.
+     * Used to make sure only one of several concurrent borrowers (or returners) succeeds.
+     *
+     * @param expected     the availability status the book must have
+     * @param availability the new availability status
+     * @return true if the status was changed, false if it did not have the expected value
+     */
+    boolean compareAndSetAvailable(boolean expected, boolean availability) {
+        return AVAILABILITY.compareAndSet(this, expected, availability);
+    }
+
+    /**
+     * Retrieves the internal ordinal assigned to the book by the library that holds it.
+     *
+     * @return the ordinal, or -1 if the book has not been added to a library
+     */
+    int getOrdinal() {
+        return ordinal;
+    }
+
+    /**
+     * Sets the internal ordinal of the book. Only the owning library should call this.
+     *
+     * @param ordinal the ordinal assigned by the library
+     */
+    void setOrdinal(int ordinal) {
+        this.ordinal = ordinal;
+    }
 }
\ No newline at end of file
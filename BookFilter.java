@@ -0,0 +1,109 @@
+package com.example;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Selects books by genre, author and availability in the Library Management System (LMS).
+ * <p>
+ * A filter is both a predicate over in-memory {@link Book}s and a SQL <code>WHERE</code> clause over the
+ * <code>books</code> table, so a bulk change can be written once and run against either. Conditions that
+ * have not been set match every book; a filter with no conditions matches the whole catalog. Genres and
+ * authors are compared without regard to case, as MySQL's default collation does.
+ * </p>
+ */
+public final class BookFilter implements Predicate<Book> {
+    private String genre;
+    private String author;
+    private Boolean availability;
+
+    /**
+     * Restricts the filter to one genre.
+     *
+     * @param genre the genre to match
+     * @return this filter
+     */
+    public BookFilter genre(String genre) {
+        this.genre = genre;
+        return this;
+    }
+
+    /**
+     * Restricts the filter to one author.
+     *
+     * @param author the author to match
+     * @return this filter
+     */
+    public BookFilter author(String author) {
+        this.author = author;
+        return this;
+    }
+
+    /**
+     * Restricts the filter to available or checked-out books.
+     *
+     * @param availability true to match available books, false to match checked-out books
+     * @return this filter
+     */
+    public BookFilter availability(boolean availability) {
+        this.availability = availability;
+        return this;
+    }
+
+    /**
+     * Checks whether a book meets every condition of the filter.
+     *
+     * @param book the book to check
+     * @return true if the book matches
+     */
+    @Override
+    public boolean test(Book book) {
+        return (genre == null || genre.equalsIgnoreCase(book.getGenre()))
+                && (author == null || author.equalsIgnoreCase(book.getAuthor()))
+                && (availability == null || availability == book.isAvailable());
+    }
+
+    /**
+     * Builds the SQL condition for the filter, with one <code>?</code> parameter per condition.
+     *
+     * @return the <code>WHERE</code> clause with a leading space, or an empty string if the filter matches every book
+     */
+    String toSqlWhere() {
+        List<String> conditions = new ArrayList<>(3);
+        if (genre != null) {
+            conditions.add("genre = ?");
+        }
+        if (author != null) {
+            conditions.add("author = ?");
+        }
+        if (availability != null) {
+            conditions.add("status = ?");
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    /**
+     * Binds the parameters of {@link #toSqlWhere()} to a statement.
+     *
+     * @param stmt       the statement to bind
+     * @param firstIndex the index of the first parameter of the condition
+     * @return the index following the last parameter bound
+     * @throws SQLException if a parameter cannot be set
+     */
+    int bind(PreparedStatement stmt, int firstIndex) throws SQLException {
+        int index = firstIndex;
+        if (genre != null) {
+            stmt.setString(index++, genre);
+        }
+        if (author != null) {
+            stmt.setString(index++, author);
+        }
+        if (availability != null) {
+            stmt.setString(index++, availability ? "checked in" : "checked out");
+        }
+        return index;
+    }
+}
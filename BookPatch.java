@@ -0,0 +1,140 @@
+package com.example;
+
+import java.util.Map;
+
+/**
+ * A set of field changes to apply to books in the Library Management System (LMS).
+ * <p>
+ * Only the fields that have been set are changed; the others keep their current values. The same
+ * patch can be applied to every book matching a {@link BookFilter}, in memory with
+ * {@link Library#updateBooks(java.util.function.Predicate, BookPatch)} or in the database with
+ * {@link BookRepository#updateBooks(BookFilter, BookPatch)}.
+ * </p>
+ * <pre>
+ * library.updateBooks(new BookFilter().genre("Sci-Fi"), new BookPatch().genre("Science Fiction"));
+ * </pre>
+ */
+public final class BookPatch {
+    private String title;
+    private String author;
+    private String genre;
+    private Boolean availability;
+
+    /**
+     * Sets the new title.
+     *
+     * @param title the new title
+     * @return this patch
+     */
+    public BookPatch title(String title) {
+        this.title = title;
+        return this;
+    }
+
+    /**
+     * Sets the new author.
+     *
+     * @param author the new author
+     * @return this patch
+     */
+    public BookPatch author(String author) {
+        this.author = author;
+        return this;
+    }
+
+    /**
+     * Sets the new genre.
+     *
+     * @param genre the new genre
+     * @return this patch
+     */
+    public BookPatch genre(String genre) {
+        this.genre = genre;
+        return this;
+    }
+
+    /**
+     * Sets the new availability status.
+     *
+     * @param availability true to mark the books available, false to mark them checked out
+     * @return this patch
+     */
+    public BookPatch availability(boolean availability) {
+        this.availability = availability;
+        return this;
+    }
+
+    /**
+     * Builds a patch from the string-keyed details accepted by {@link Library#updateBook(String, Map)}.
+     * The keys <code>title</code>, <code>author</code>, <code>genre</code> and <code>availability</code>
+     * are recognised; other keys are ignored.
+     *
+     * @param details the new details
+     * @return a patch setting the given fields
+     */
+    public static BookPatch fromMap(Map<String, String> details) {
+        BookPatch patch = new BookPatch();
+        patch.title = details.get("title");
+        patch.author = details.get("author");
+        patch.genre = details.get("genre");
+        String availability = details.get("availability");
+        if (availability != null) {
+            patch.availability = Boolean.parseBoolean(availability);
+        }
+        return patch;
+    }
+
+    /**
+     * Gets the new title.
+     *
+     * @return the new title, or null if the title is not changed
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Gets the new author.
+     *
+     * @return the new author, or null if the author is not changed
+     */
+    public String getAuthor() {
+        return author;
+    }
+
+    /**
+     * Gets the new genre.
+     *
+     * @return the new genre, or null if the genre is not changed
+     */
+    public String getGenre() {
+        return genre;
+    }
+
+    /**
+     * Gets the new availability status.
+     *
+     * @return the new availability, or null if it is not changed
+     */
+    public Boolean getAvailability() {
+        return availability;
+    }
+
+    /**
+     * Checks whether the patch changes any of the fields that are searched: title, author or genre.
+     *
+     * @return true if a searched field is changed
+     */
+    boolean changesSearchedFields() {
+        return title != null || author != null || genre != null;
+    }
+
+    /**
+     * Checks whether the patch changes nothing.
+     *
+     * @return true if no field is set
+     */
+    public boolean isEmpty() {
+        return !changesSearchedFields() && availability == null;
+    }
+}
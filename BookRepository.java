@@ -0,0 +1,394 @@
+package com.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the SQL used by the Library Management System (LMS) against the <code>books</code> table.
+ * <p>
+ * Keeps the JDBC work out of the user interface so it can be batched and reused.
+ * </p>
+ *
+ * @author Jennifer Lantigua
+ */
+public class BookRepository {
+    /** Number of rows sent to the database in one batch when importing, unless configured otherwise. */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private static final String INSERT_BOOK =
+            "INSERT INTO books (barcode, title, author, genre, status) VALUES (?, ?, ?, ?, ?)";
+    private static final String DELETE_BOOK = "DELETE FROM books WHERE barcode = ?";
+    private static final String CHECK_OUT_BOOK =
+            "UPDATE books SET status = 'checked out', due_date = ? WHERE barcode = ? AND status = 'checked in'";
+    private static final String CHECK_IN_BOOK =
+            "UPDATE books SET status = 'checked in', due_date = NULL WHERE barcode = ? AND status = 'checked out'";
+
+    private final Connection connection;
+    private final IdGenerator idGenerator;
+
+    /**
+     * Constructs a repository that works on the given connection and creates time-ordered barcodes.
+     *
+     * @param connection the database connection to use
+     */
+    public BookRepository(Connection connection) {
+        this(connection, IdGenerator.timeOrdered());
+    }
+
+    /**
+     * Constructs a repository that works on the given connection.
+     *
+     * @param connection  the database connection to use
+     * @param idGenerator the source of barcodes for imported books
+     */
+    public BookRepository(Connection connection, IdGenerator idGenerator) {
+        this.connection = connection;
+        this.idGenerator = idGenerator;
+    }
+
+    /**
+     * Imports books from a reader into the <code>books</code> table.
+     * <p>
+     * Each line must have the format <code>title,author,genre,availability</code>; other lines are skipped.
+     * Every book is stored as checked in with a new barcode. Barcodes are time-ordered, so each batch
+     * appends to the end of the primary key index. One prepared statement is reused for all
+     * rows, and rows are sent with {@link PreparedStatement#executeBatch()} and committed every
+     * <code>batchSize</code> rows. If a batch fails, the rows of that batch are rolled back.
+     * </p>
+     *
+     * @param reader    the source of book lines
+     * @param batchSize the number of rows per batch and transaction
+     * @return the number of rows imported and skipped, and the import rate
+     * @throws IOException  if the reader fails
+     * @throws SQLException if a database access error occurs
+     */
+    public ImportResult importBooks(BufferedReader reader, int batchSize) throws IOException, SQLException {
+        return importBooks(reader, batchSize, TaskProgress.NONE);
+    }
+
+    /**
+     * Imports books from a reader, reporting progress after every batch.
+     * <p>
+     * If the progress reports cancellation, the import stops after the current batch is committed;
+     * batches already committed stay in the database.
+     * </p>
+     *
+     * @param reader    the source of book lines
+     * @param batchSize the number of rows per batch and transaction
+     * @param progress  receives the number of rows imported so far and signals cancellation
+     * @return the number of rows imported and skipped, and the import rate
+     * @throws IOException  if the reader fails
+     * @throws SQLException if a database access error occurs
+     */
+    public ImportResult importBooks(BufferedReader reader, int batchSize, TaskProgress progress)
+            throws IOException, SQLException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        long start = System.nanoTime();
+        long imported = 0;
+        long skipped = 0;
+        boolean cancelled = false;
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement stmt = connection.prepareStatement(INSERT_BOOK)) {
+            int pending = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (pending == 0 && progress.isCancelled()) {
+                    cancelled = true;
+                    break;
+                }
+                String[] bookData = line.split(",");
+                if (bookData.length != 4) {
+                    skipped++;
+                    continue;
+                }
+                stmt.setString(1, idGenerator.next().toString()); // Unique, time-ordered barcode
+                stmt.setString(2, bookData[0].trim());
+                stmt.setString(3, bookData[1].trim());
+                stmt.setString(4, bookData[2].trim());
+                stmt.setString(5, "checked in"); // Default status
+                stmt.addBatch();
+                if (++pending == batchSize) {
+                    stmt.executeBatch();
+                    connection.commit();
+                    imported += pending;
+                    pending = 0;
+                    progress.report("Imported " + imported + " books...", -1);
+                }
+            }
+            if (pending > 0) {
+                stmt.executeBatch();
+                connection.commit();
+                imported += pending;
+            }
+        } catch (SQLException | IOException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        return new ImportResult(imported, skipped, cancelled, System.nanoTime() - start);
+    }
+
+    /**
+     * Deletes several books by barcode in one database round trip.
+     * <p>
+     * The deletes are sent as one JDBC batch and committed together; if the batch fails, no book is
+     * deleted. Barcodes that are not found are skipped.
+     * </p>
+     *
+     * @param barcodes the barcodes of the books to delete
+     * @return for each barcode, in order, true if a book was deleted
+     * @throws SQLException if a database access error occurs
+     */
+    public boolean[] removeBooks(List<String> barcodes) throws SQLException {
+        return executeBatch(DELETE_BOOK, barcodes, null);
+    }
+
+    /**
+     * Deletes every book matching a filter with a single set-based <code>DELETE</code>, such as
+     * <code>DELETE FROM books WHERE genre = ? AND status = ?</code>.
+     *
+     * @param filter selects the books to delete; it must have at least one condition
+     * @return the number of books deleted
+     * @throws IllegalArgumentException if the filter has no conditions and would delete every book
+     * @throws SQLException             if a database access error occurs
+     */
+    public int removeBooks(BookFilter filter) throws SQLException {
+        String where = filter.toSqlWhere();
+        if (where.isEmpty()) {
+            throw new IllegalArgumentException("Filter has no conditions; refusing to delete every book");
+        }
+        try (PreparedStatement stmt = connection.prepareStatement("DELETE FROM books" + where)) {
+            filter.bind(stmt, 1);
+            return stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Checks out a book that is currently checked in.
+     *
+     * @param barcode the barcode of the book to check out
+     * @param dueDate the date the book is due back
+     * @return true if the book was checked out, false if it was not found or already checked out
+     * @throws SQLException if a database access error occurs
+     */
+    public boolean checkOutBook(String barcode, LocalDate dueDate) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(CHECK_OUT_BOOK)) {
+            stmt.setDate(1, Date.valueOf(dueDate));
+            stmt.setString(2, barcode);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Checks in a book that is currently checked out and clears its due date.
+     *
+     * @param barcode the barcode of the book to check in
+     * @return true if the book was checked in, false if it was not found or already checked in
+     * @throws SQLException if a database access error occurs
+     */
+    public boolean checkInBook(String barcode) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(CHECK_IN_BOOK)) {
+            stmt.setString(1, barcode);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Applies the same changes to every book matching a filter with a single set-based <code>UPDATE</code>,
+     * such as <code>UPDATE books SET genre = ? WHERE genre = ?</code>. The database finds and changes the
+     * rows itself, so no rows are read into the application.
+     * <p>
+     * Marking books available also clears their due date. A patch cannot mark books checked out, since
+     * a checked-out row needs a due date; use {@link #checkOutBooks(List, LocalDate)} instead.
+     * </p>
+     *
+     * @param filter selects the books to update; it must have at least one condition
+     * @param patch  the changes to apply
+     * @return the number of books updated
+     * @throws IllegalArgumentException if the filter has no conditions and would update every book, or
+     *                                  the patch marks books checked out
+     * @throws SQLException             if a database access error occurs
+     */
+    public int updateBooks(BookFilter filter, BookPatch patch) throws SQLException {
+        String where = filter.toSqlWhere();
+        if (where.isEmpty()) {
+            throw new IllegalArgumentException("Filter has no conditions; refusing to update every book");
+        }
+        if (Boolean.FALSE.equals(patch.getAvailability())) {
+            throw new IllegalArgumentException("Books must be checked out with a due date, not patched");
+        }
+        if (patch.isEmpty()) {
+            return 0;
+        }
+        List<String> assignments = new ArrayList<>(4);
+        if (patch.getTitle() != null) {
+            assignments.add("title = ?");
+        }
+        if (patch.getAuthor() != null) {
+            assignments.add("author = ?");
+        }
+        if (patch.getGenre() != null) {
+            assignments.add("genre = ?");
+        }
+        if (patch.getAvailability() != null) {
+            assignments.add("status = 'checked in', due_date = NULL");
+        }
+        String sql = "UPDATE books SET " + String.join(", ", assignments) + where;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            int index = 1;
+            if (patch.getTitle() != null) {
+                stmt.setString(index++, patch.getTitle());
+            }
+            if (patch.getAuthor() != null) {
+                stmt.setString(index++, patch.getAuthor());
+            }
+            if (patch.getGenre() != null) {
+                stmt.setString(index++, patch.getGenre());
+            }
+            filter.bind(stmt, index);
+            return stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Checks out several books in one database round trip, as a self-checkout kiosk does.
+     * <p>
+     * The updates are sent as one JDBC batch and committed together; if the batch fails, none of
+     * them is kept. A book that is not found or already checked out is reported as not checked out
+     * and does not stop the others.
+     * </p>
+     *
+     * @param barcodes the barcodes of the books to check out
+     * @param dueDate  the date the books are due back
+     * @return for each barcode, in order, true if the book was checked out
+     * @throws SQLException if a database access error occurs
+     */
+    public boolean[] checkOutBooks(List<String> barcodes, LocalDate dueDate) throws SQLException {
+        return executeBatch(CHECK_OUT_BOOK, barcodes, dueDate);
+    }
+
+    /**
+     * Checks in several books in one database round trip, as a book-drop sorter does.
+     * <p>
+     * The updates are sent as one JDBC batch and committed together; if the batch fails, none of
+     * them is kept.
+     * </p>
+     *
+     * @param barcodes the barcodes of the books to check in
+     * @return for each barcode, in order, true if the book was checked in
+     * @throws SQLException if a database access error occurs
+     */
+    public boolean[] checkInBooks(List<String> barcodes) throws SQLException {
+        return executeBatch(CHECK_IN_BOOK, barcodes, null);
+    }
+
+    /**
+     * Runs a statement keyed by barcode once per barcode as a single batch and transaction.
+     *
+     * @param sql      the statement, whose last parameter is the barcode
+     * @param barcodes the barcodes to run it for
+     * @param dueDate  the due date to bind as the first parameter, or null if the statement has none
+     * @return for each barcode, true if the statement changed a row. A driver that does not report
+     *         row counts ({@link Statement#SUCCESS_NO_INFO}) is taken to have changed one.
+     */
+    private boolean[] executeBatch(String sql, List<String> barcodes, LocalDate dueDate) throws SQLException {
+        boolean[] results = new boolean[barcodes.size()];
+        if (barcodes.isEmpty()) {
+            return results;
+        }
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (String barcode : barcodes) {
+                int parameter = 1;
+                if (dueDate != null) {
+                    stmt.setDate(parameter++, Date.valueOf(dueDate));
+                }
+                stmt.setString(parameter, barcode);
+                stmt.addBatch();
+            }
+            int[] counts = stmt.executeBatch();
+            connection.commit();
+            for (int i = 0; i < results.length; i++) {
+                results[i] = counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO;
+            }
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        return results;
+    }
+
+    /**
+     * Outcome of an import: how many rows were stored and skipped, and how fast.
+     */
+    public static final class ImportResult {
+        private final long imported;
+        private final long skipped;
+        private final boolean cancelled;
+        private final long elapsedNanos;
+
+        ImportResult(long imported, long skipped, boolean cancelled, long elapsedNanos) {
+            this.imported = imported;
+            this.skipped = skipped;
+            this.cancelled = cancelled;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Gets the number of rows stored in the database.
+         *
+         * @return the number of imported rows
+         */
+        public long getImported() {
+            return imported;
+        }
+
+        /**
+         * Gets the number of lines that were not valid book rows.
+         *
+         * @return the number of skipped lines
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * Checks whether the import was stopped before the end of the input.
+         *
+         * @return true if the import was cancelled
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Gets the import rate.
+         *
+         * @return the number of rows imported per second
+         */
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : imported * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %d books (%d lines skipped) at %.0f rows/sec.",
+                    cancelled ? "Import cancelled after" : "Imported", imported, skipped, getRowsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Loads large catalog files into the Library Management System (LMS) in parallel.
+ * <p>
+ * The file is memory-mapped and cut into chunks of roughly equal size. Each chunk is parsed on a
+ * fork-join pool into a batch of {@link Book} objects, and the batches are then added to the
+ * library in file order. Bad rows are collected into a {@link BulkLoadReport} instead of being printed.
+ * </p>
+ * <p>
+ * Rows use the same format as {@link Library#loadBooksFromFile(String)}:
+ * <code>title,author,genre,availability</code>, encoded in UTF-8.
+ * </p>
+ */
+class BulkBookLoader {
+    /** Default number of bytes parsed by one task. */
+    static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    /** Bytes mapped past the end of a chunk to finish its last line; a longer line makes the chunk map more. */
+    static final int LINE_WINDOW = 64 * 1024;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    /**
+     * Constructs a loader that parses on the common fork-join pool with the default chunk size.
+     */
+    BulkBookLoader() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructs a loader with an explicit pool and chunk size.
+     *
+     * @param pool      the pool that runs the parsing tasks
+     * @param chunkSize the approximate number of bytes parsed by one task
+     */
+    BulkBookLoader(ForkJoinPool pool, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Parses a catalog file and adds every valid row to the library.
+     *
+     * @param library the library to add the books to
+     * @param file    the catalog file to load
+     * @return a summary of the rows loaded and rejected
+     * @throws IOException if the file cannot be read
+     */
+    BulkLoadReport load(Library library, Path file) throws IOException {
+        long start = System.nanoTime();
+        List<ChunkResult> results = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<ChunkParser> tasks = new ArrayList<>();
+            for (long offset = 0; offset < size; offset += chunkSize) {
+                tasks.add(new ChunkParser(channel, offset, Math.min(size, offset + chunkSize), size,
+                        library.getIdGenerator(), library.getStringPool()));
+            }
+            for (ChunkParser task : tasks) {
+                pool.execute(task);
+            }
+            for (ChunkParser task : tasks) {
+                results.add(task.join());
+            }
+        } catch (UncheckedIOException e) {
+            // join() may wrap the worker's exception again, so look for the original I/O failure
+            Throwable cause = e;
+            while (cause != null && !(cause instanceof IOException)) {
+                cause = cause.getCause();
+            }
+            throw cause != null ? (IOException) cause : new IOException(e);
+        }
+
+        BulkLoadReport report = new BulkLoadReport();
+        long firstLine = 1;
+        for (ChunkResult result : results) {
+            library.addBooks(result.books);
+            report.addChunk(result.lines, result.books.size());
+            for (int i = 0; i < result.errorLines.size(); i++) {
+                report.addError(firstLine + result.errorLines.get(i), result.errorRows.get(i));
+            }
+            firstLine += result.lines;
+        }
+        report.finish(System.nanoTime() - start);
+        return report;
+    }
+
+    /**
+     * Parses a single line into a book, using the same rules as {@link Library#loadBooksFromFile(String)}.
+     *
+     * @param line        the line to parse
+     * @param idGenerator the source of the new book's ID
+     * @param stringPool  shares the author and genre values between books
+     * @return the parsed book, or null if the line does not have exactly four fields
+     */
+    static Book parseLine(String line, IdGenerator idGenerator, StringPool stringPool) {
+        String[] bookData = line.split(",");
+        if (bookData.length != 4) {
+            return null;
+        }
+        return new Book(idGenerator.next(), bookData[0].trim(), stringPool.intern(bookData[1].trim()),
+                stringPool.intern(bookData[2].trim()), Boolean.parseBoolean(bookData[3].trim()));
+    }
+
+    /**
+     * Books and rejected rows parsed from one chunk. Line numbers are relative to the chunk.
+     */
+    private static final class ChunkResult {
+        final List<Book> books = new ArrayList<>();
+        final List<Long> errorLines = new ArrayList<>();
+        final List<String> errorRows = new ArrayList<>();
+        long lines;
+    }
+
+    /**
+     * Parses the lines that start inside one byte range of the file. A line that begins in the range
+     * but crosses its end is finished by this chunk; a partial line at the start belongs to the previous one.
+     */
+    private static final class ChunkParser extends RecursiveTask<ChunkResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private final long fileSize;
+        private final IdGenerator idGenerator;
+        private final StringPool stringPool;
+
+        ChunkParser(FileChannel channel, long start, long end, long fileSize, IdGenerator idGenerator,
+                    StringPool stringPool) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.fileSize = fileSize;
+            this.idGenerator = idGenerator;
+            this.stringPool = stringPool;
+        }
+
+        @Override
+        protected ChunkResult compute() {
+            ChunkResult result = new ChunkResult();
+            try {
+                // Map from one byte before the chunk (to see whether it starts on a line boundary)
+                // to a window past the end, which is usually enough to finish the last line.
+                long mapStart = start == 0 ? 0 : start - 1;
+                long available = fileSize - mapStart;
+                int mapLength = (int) Math.min(available, end - mapStart + LINE_WINDOW);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapLength);
+
+                int pos = 0;
+                if (start > 0) {
+                    boolean atLineStart = buffer.get(0) == '\n';
+                    pos = 1;
+                    if (!atLineStart) {
+                        // A partial line running past the window also runs past the chunk, so it
+                        // belongs entirely to the previous chunk
+                        while (pos < mapLength && buffer.get(pos) != '\n') {
+                            pos++;
+                        }
+                        pos++;
+                    }
+                }
+
+                int limit = (int) (end - mapStart);
+                byte[] scratch = new byte[256];
+                while (pos < limit) {
+                    int lineEnd = pos;
+                    while (true) {
+                        while (lineEnd < mapLength && buffer.get(lineEnd) != '\n') {
+                            lineEnd++;
+                        }
+                        if (lineEnd < mapLength || mapLength == available) {
+                            break;
+                        }
+                        // The last line runs past the window: map further and keep scanning
+                        if (mapLength == Integer.MAX_VALUE) {
+                            throw new IOException("Line at byte " + (mapStart + pos) + " is longer than 2 GB");
+                        }
+                        mapLength = (int) Math.min(available, Math.min(Integer.MAX_VALUE, 2L * mapLength));
+                        buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapLength);
+                    }
+                    int length = lineEnd - pos;
+                    if (length > 0 && buffer.get(lineEnd - 1) == '\r') {
+                        length--;
+                    }
+                    if (length > scratch.length) {
+                        scratch = new byte[Math.max(length, scratch.length * 2)];
+                    }
+                    buffer.get(pos, scratch, 0, length);
+                    String line = new String(scratch, 0, length, StandardCharsets.UTF_8);
+
+                    Book book = parseLine(line, idGenerator, stringPool);
+                    if (book != null) {
+                        result.books.add(book);
+                    } else {
+                        result.errorLines.add(result.lines);
+                        result.errorRows.add(line);
+                    }
+                    result.lines++;
+                    pos = lineEnd + 1;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return result;
+        }
+    }
+}
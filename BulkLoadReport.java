@@ -0,0 +1,107 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Summary of a bulk catalog load in the Library Management System (LMS).
+ * <p>
+ * Records how many lines were read and loaded, how long the load took, and the rows that were
+ * rejected. Only the first {@link #MAX_ERROR_SAMPLES} rejected rows are kept; the rest are counted.
+ * </p>
+ */
+class BulkLoadReport {
+    /** Maximum number of rejected rows kept for display. */
+    static final int MAX_ERROR_SAMPLES = 100;
+
+    private long linesRead;
+    private long booksLoaded;
+    private long errorCount;
+    private long elapsedNanos;
+    private final List<String> errorSamples = new ArrayList<>();
+
+    /**
+     * Records the outcome of one parsed chunk.
+     *
+     * @param lines the number of lines in the chunk
+     * @param books the number of books loaded from the chunk
+     */
+    void addChunk(long lines, long books) {
+        linesRead += lines;
+        booksLoaded += books;
+    }
+
+    /**
+     * Records a rejected row.
+     *
+     * @param lineNumber the 1-based line number of the row in the file
+     * @param row        the text of the row
+     */
+    void addError(long lineNumber, String row) {
+        errorCount++;
+        if (errorSamples.size() < MAX_ERROR_SAMPLES) {
+            errorSamples.add("line " + lineNumber + ": " + row);
+        }
+    }
+
+    /**
+     * Records the total duration of the load.
+     *
+     * @param elapsedNanos the time taken, in nanoseconds
+     */
+    void finish(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Gets the number of lines read from the file.
+     *
+     * @return the number of lines read
+     */
+    public long getLinesRead() {
+        return linesRead;
+    }
+
+    /**
+     * Gets the number of books added to the library.
+     *
+     * @return the number of books loaded
+     */
+    public long getBooksLoaded() {
+        return booksLoaded;
+    }
+
+    /**
+     * Gets the number of rows that could not be parsed.
+     *
+     * @return the number of rejected rows
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Gets a sample of the rejected rows, each prefixed with its line number.
+     *
+     * @return up to {@link #MAX_ERROR_SAMPLES} rejected rows, in file order
+     */
+    public List<String> getErrorSamples() {
+        return Collections.unmodifiableList(errorSamples);
+    }
+
+    /**
+     * Gets how long the load took.
+     *
+     * @return the elapsed time in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    @Override
+    public String toString() {
+        return "Loaded " + booksLoaded + " of " + linesRead + " lines in " + getElapsedMillis() + " ms ("
+                + errorCount + " invalid)";
+    }
+}
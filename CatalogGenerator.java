@@ -0,0 +1,364 @@
+package com.example;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic catalogs and borrow/return workloads for load testing the Library Management System (LMS).
+ * <p>
+ * Catalogs use the <code>title,author,genre,availability</code> format read by {@link Library#loadBooksFromFile(String)}
+ * and the GUI import. Authors and genres follow Zipf distributions, so a few are very common and most
+ * are rare, as in a real collection. Rows are written as they are generated, so catalogs of 100 million
+ * rows need no more memory than small ones.
+ * </p>
+ * <p>
+ * A workload trace is a list of <code>borrow,userId,row</code> and <code>return,userId,row</code>
+ * lines, where <code>row</code> is the zero-based line of the book in the catalog file. Popular books
+ * and active users are again drawn from Zipf distributions. The generator follows which books are on
+ * loan, so returns are made by the user who borrowed the book; borrows of popular books that are
+ * already out are kept, as they would be at a real desk. {@link WorkloadReplayer} plays a trace back.
+ * </p>
+ * <p>
+ * Both generators are seeded, so the same arguments always produce the same files.
+ * </p>
+ * <pre>
+ * java com.example.CatalogGenerator catalog books.csv 10000000 [seed]
+ * java com.example.CatalogGenerator workload books.csv trace.csv 1000000 [seed]
+ * </pre>
+ */
+public class CatalogGenerator {
+    private static final String[] TITLE_WORDS = {
+            "Shadow", "River", "Garden", "Night", "Empire", "Secret", "Winter", "Stone", "Fire", "House",
+            "Light", "Silent", "Lost", "Crown", "Storm", "Island", "Glass", "Iron", "Dream", "Journey",
+            "Forest", "Ocean", "Memory", "City", "Star", "Mountain", "Letter", "Promise", "Wolf", "Song",
+            "Last", "First", "Hidden", "Broken", "Golden", "Dark", "Summer", "Wild", "Long", "Second",
+            "Daughter", "King", "Queen", "Road", "Bridge", "Heart", "Machine", "Harbor", "Tide", "Echo"};
+    private static final String[] FIRST_NAMES = {
+            "James", "Mary", "Robert", "Patricia", "John", "Jennifer", "Michael", "Linda", "David", "Elizabeth",
+            "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Carlos", "Maria",
+            "Daniel", "Nancy", "Matthew", "Lisa", "Anthony", "Betty", "Mark", "Sandra", "Kenji", "Amara"};
+    private static final String[] LAST_NAMES = {
+            "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+            "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin",
+            "Lee", "Perez", "Thompson", "White", "Harris", "Sanchez", "Clark", "Ramirez", "Okafor", "Tanaka"};
+    private static final String[] GENRES = {
+            "Fiction", "Mystery", "Romance", "Science Fiction", "Fantasy", "Biography", "History", "Thriller",
+            "Young Adult", "Children", "Poetry", "Self-Help", "Cooking", "Travel", "Science", "Philosophy",
+            "Horror", "Graphic Novel", "Business", "Religion", "Art", "Health", "Adventure", "Dystopian",
+            "Classic", "Drama", "Humor", "Memoir", "Politics", "Sports"};
+
+    /** Default Zipf exponent for authors, genres, books and users. */
+    static final double DEFAULT_EXPONENT = 1.0;
+
+    private final SplittableRandom random;
+    private int authors;
+    private int genres;
+    private double exponent = DEFAULT_EXPONENT;
+    private double availableShare = 0.9;
+
+    /**
+     * Constructs a generator with the given seed and defaults sized for a catalog of the given size.
+     *
+     * @param seed the random seed
+     * @param rows the number of catalog rows the generator will be used for
+     */
+    CatalogGenerator(long seed, long rows) {
+        this.random = new SplittableRandom(seed);
+        this.authors = (int) Math.max(1, Math.min(rows / 8, 2_000_000));
+        this.genres = (int) Math.max(1, Math.min(rows / 1_000, 3_000));
+    }
+
+    /**
+     * Sets the number of distinct authors.
+     *
+     * @param authors the number of authors
+     * @return this generator
+     */
+    CatalogGenerator authors(int authors) {
+        this.authors = authors;
+        return this;
+    }
+
+    /**
+     * Sets the number of distinct genres.
+     *
+     * @param genres the number of genres
+     * @return this generator
+     */
+    CatalogGenerator genres(int genres) {
+        this.genres = genres;
+        return this;
+    }
+
+    /**
+     * Sets the Zipf exponent; larger values concentrate more rows on the most common values.
+     *
+     * @param exponent the exponent, greater than 0
+     * @return this generator
+     */
+    CatalogGenerator exponent(double exponent) {
+        this.exponent = exponent;
+        return this;
+    }
+
+    /**
+     * Sets the share of books that start out available.
+     *
+     * @param availableShare a value between 0 and 1
+     * @return this generator
+     */
+    CatalogGenerator availableShare(double availableShare) {
+        this.availableShare = availableShare;
+        return this;
+    }
+
+    /**
+     * Writes a catalog.
+     *
+     * @param out  receives the rows
+     * @param rows the number of rows to write
+     * @throws IOException if the rows cannot be written
+     */
+    void writeCatalog(Writer out, long rows) throws IOException {
+        ZipfSampler authorSampler = new ZipfSampler(authors, exponent);
+        ZipfSampler genreSampler = new ZipfSampler(genres, exponent);
+        StringBuilder line = new StringBuilder(96);
+        for (long row = 0; row < rows; row++) {
+            line.setLength(0);
+            appendTitle(line);
+            line.append(',');
+            appendAuthor(line, authorSampler.sample(random) - 1);
+            line.append(',');
+            appendGenre(line, genreSampler.sample(random) - 1);
+            line.append(',').append(random.nextDouble() < availableShare).append('\n');
+            out.append(line);
+        }
+    }
+
+    /**
+     * Writes a workload trace for a catalog.
+     *
+     * @param out         receives the trace lines
+     * @param available   which catalog rows start out available
+     * @param rows        the number of catalog rows
+     * @param operations  the number of borrows and returns to write
+     * @param users       the number of distinct users
+     * @param returnShare the share of operations that are returns, when any book is on loan
+     * @throws IOException if the trace cannot be written
+     */
+    void writeWorkload(Writer out, BitSet available, long rows, long operations, int users, double returnShare)
+            throws IOException {
+        if (rows > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Workloads support catalogs of up to " + Integer.MAX_VALUE + " rows");
+        }
+        ZipfSampler bookSampler = new ZipfSampler(rows, exponent);
+        ZipfSampler userSampler = new ZipfSampler(users, exponent);
+        // Popularity rank -> row through a multiplier coprime to the row count, a permutation that
+        // spreads the most popular books through the catalog
+        long multiplier = 1;
+        if (rows > 2) {
+            do {
+                multiplier = 1 + random.nextLong(rows - 1);
+            } while (gcd(multiplier, rows) != 1);
+        }
+        long offset = random.nextLong(rows);
+        Map<Integer, Integer> holders = new HashMap<>(); // Row -> user holding it
+        List<Integer> loans = new ArrayList<>();          // Rows on loan, for picking one at random
+        BitSet onShelf = (BitSet) available.clone();
+
+        for (long op = 0; op < operations; op++) {
+            if (!loans.isEmpty() && random.nextDouble() < returnShare) {
+                int position = random.nextInt(loans.size());
+                int row = loans.get(position);
+                int last = loans.remove(loans.size() - 1);
+                if (position < loans.size()) {
+                    loans.set(position, last);
+                }
+                int user = holders.remove(row);
+                onShelf.set(row);
+                out.append("return,user").append(Integer.toString(user)).append(',')
+                        .append(Integer.toString(row)).append('\n');
+            } else {
+                int row = (int) (((bookSampler.sample(random) - 1) * multiplier + offset) % rows);
+                int user = (int) userSampler.sample(random);
+                if (onShelf.get(row)) {
+                    onShelf.clear(row);
+                    holders.put(row, user);
+                    loans.add(row);
+                }
+                out.append("borrow,user").append(Integer.toString(user)).append(',')
+                        .append(Integer.toString(row)).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Reads which rows of a catalog file start out available.
+     *
+     * @param catalog the catalog file
+     * @param rows    receives the number of rows read, in its first element
+     * @return the available rows
+     * @throws IOException if the file cannot be read
+     */
+    static BitSet readAvailability(Path catalog, long[] rows) throws IOException {
+        BitSet available = new BitSet();
+        int row = 0;
+        try (BufferedReader in = Files.newBufferedReader(catalog, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.endsWith(",true")) {
+                    available.set(row);
+                }
+                row++;
+            }
+        }
+        rows[0] = row;
+        return available;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    private void appendTitle(StringBuilder line) {
+        int words = 1 + random.nextInt(4);
+        if (random.nextInt(3) == 0) {
+            line.append("The ");
+        }
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                line.append(' ');
+            }
+            line.append(TITLE_WORDS[random.nextInt(TITLE_WORDS.length)]);
+        }
+    }
+
+    private static void appendAuthor(StringBuilder line, long index) {
+        int names = FIRST_NAMES.length * LAST_NAMES.length;
+        line.append(FIRST_NAMES[(int) (index % FIRST_NAMES.length)]).append(' ');
+        if (index >= names) {
+            line.append((char) ('A' + (index / names) % 26)).append(". ");
+        }
+        line.append(LAST_NAMES[(int) (index / FIRST_NAMES.length % LAST_NAMES.length)]);
+        if (index >= names * 26L) {
+            line.append(' ').append(index / (names * 26L) + 1);
+        }
+    }
+
+    private static void appendGenre(StringBuilder line, long index) {
+        if (index < GENRES.length) {
+            line.append(GENRES[(int) index]);
+        } else {
+            line.append(GENRES[(int) (index % GENRES.length)]).append(' ').append(index / GENRES.length + 1);
+        }
+    }
+
+    /**
+     * Draws values from 1 to n with probability proportional to 1 / k^exponent.
+     * <p>
+     * Uses rejection-inversion sampling (Hormann and Derflinger), which needs no table, so n can be as
+     * large as the catalog.
+     * </p>
+     */
+    static final class ZipfSampler {
+        private final long n;
+        private final double exponent;
+        private final double hIntegralX1;
+        private final double hIntegralN;
+        private final double s;
+
+        ZipfSampler(long n, double exponent) {
+            if (n < 1 || exponent <= 0) {
+                throw new IllegalArgumentException("Invalid Zipf parameters: n=" + n + ", exponent=" + exponent);
+            }
+            this.n = n;
+            this.exponent = exponent;
+            this.hIntegralX1 = hIntegral(1.5) - 1;
+            this.hIntegralN = hIntegral(n + 0.5);
+            this.s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+        }
+
+        long sample(SplittableRandom random) {
+            while (true) {
+                double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+                double x = hIntegralInverse(u);
+                long k = Math.max(1, Math.min(n, (long) (x + 0.5)));
+                if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                    return k;
+                }
+            }
+        }
+
+        private double h(double x) {
+            return Math.exp(-exponent * Math.log(x));
+        }
+
+        private double hIntegral(double x) {
+            double logX = Math.log(x);
+            return helper2((1 - exponent) * logX) * logX;
+        }
+
+        private double hIntegralInverse(double x) {
+            double t = Math.max(-1, x * (1 - exponent));
+            return Math.exp(helper1(t) * x);
+        }
+
+        /** log(1 + x) / x, accurate near 0. */
+        private static double helper1(double x) {
+            return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+        }
+
+        /** (exp(x) - 1) / x, accurate near 0. */
+        private static double helper2(double x) {
+            return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x * (1.0 / 3) * (1 + 0.25 * x));
+        }
+    }
+
+    /**
+     * Writes a catalog or a workload trace, depending on the first argument.
+     *
+     * @param args <code>catalog file rows [seed]</code> or <code>workload catalogFile traceFile operations [seed]</code>
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 3 && args[0].equals("catalog")) {
+            long rows = Long.parseLong(args[2]);
+            long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+            long start = System.nanoTime();
+            try (BufferedWriter out = Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+                new CatalogGenerator(seed, rows).writeCatalog(out, rows);
+            }
+            System.out.println("Wrote " + rows + " books in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+        } else if (args.length >= 4 && args[0].equals("workload")) {
+            long[] rows = new long[1];
+            BitSet available = readAvailability(Paths.get(args[1]), rows);
+            long operations = Long.parseLong(args[3]);
+            long seed = args.length > 4 ? Long.parseLong(args[4]) : 1;
+            int users = (int) Math.max(1, Math.min(rows[0] / 10, 1_000_000));
+            try (BufferedWriter out = Files.newBufferedWriter(Paths.get(args[2]), StandardCharsets.UTF_8)) {
+                new CatalogGenerator(seed, rows[0]).writeWorkload(out, available, rows[0], operations, users, 0.45);
+            }
+            System.out.println("Wrote " + operations + " operations over " + rows[0] + " books.");
+        } else {
+            System.out.println("Usage: CatalogGenerator catalog <file> <rows> [seed]");
+            System.out.println("       CatalogGenerator workload <catalogFile> <traceFile> <operations> [seed]");
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted full-text index over the title, author and genre of books in the Library Management System (LMS).
+ * <p>
+ * Each field is split into lower-cased words. For every word the index keeps a posting list: a sorted
+ * array of the internal ordinals of the books containing it, along with a bit mask of the fields the
+ * word appears in. Queries intersect (AND) or merge (OR) the posting lists and rank the results by how
+ * rare the matched words are and which fields they were found in.
+ * </p>
+ */
+class CatalogSearchIndex {
+    static final int TITLE = 1;
+    static final int AUTHOR = 2;
+    static final int GENRE = 4;
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private int documentCount;
+
+    /**
+     * A single search hit: the ordinal of a matching book and its relevance score.
+     */
+    static final class Hit {
+        final int ordinal;
+        final double score;
+
+        Hit(int ordinal, double score) {
+            this.ordinal = ordinal;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Splits text into lower-cased words made of letters and digits.
+     *
+     * @param text the text to tokenize (may be null)
+     * @return the distinct words in the order they first appear
+     */
+    static Set<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) {
+            return terms;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Indexes the title, author and genre of a book.
+     *
+     * @param ordinal the internal ordinal of the book
+     * @param book    the book to index
+     */
+    void add(int ordinal, Book book) {
+        for (Map.Entry<String, Integer> term : fieldsByTerm(book).entrySet()) {
+            postings.computeIfAbsent(term.getKey(), key -> new PostingList()).add(ordinal, term.getValue());
+        }
+        documentCount++;
+    }
+
+    /**
+     * Removes a book from the index. The book must still carry the values it was indexed with.
+     *
+     * @param ordinal the internal ordinal of the book
+     * @param book    the book to remove
+     */
+    void remove(int ordinal, Book book) {
+        for (String term : fieldsByTerm(book).keySet()) {
+            PostingList list = postings.get(term);
+            if (list != null) {
+                list.remove(ordinal);
+                if (list.size == 0) {
+                    postings.remove(term);
+                }
+            }
+        }
+        documentCount--;
+    }
+
+    /**
+     * Searches the index.
+     *
+     * @param query    the words to look for
+     * @param matchAll true to require every word (AND), false to accept any of them (OR)
+     * @return the matching books, best match first
+     */
+    List<Hit> search(String query, boolean matchAll) {
+        List<PostingList> lists = new ArrayList<>();
+        for (String term : tokenize(query)) {
+            PostingList list = postings.get(term);
+            if (list != null) {
+                lists.add(list);
+            } else if (matchAll) {
+                return new ArrayList<>(); // A missing word can never be matched
+            }
+        }
+        if (lists.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Hit> hits = matchAll ? intersect(lists) : union(lists);
+        hits.sort((a, b) -> a.score != b.score ? Double.compare(b.score, a.score) : Integer.compare(a.ordinal, b.ordinal));
+        return hits;
+    }
+
+    private List<Hit> intersect(List<PostingList> lists) {
+        lists.sort((a, b) -> Integer.compare(a.size, b.size)); // Drive the intersection from the rarest word
+        PostingList smallest = lists.get(0);
+        int[] cursors = new int[lists.size()];
+        List<Hit> hits = new ArrayList<>();
+
+        candidates:
+        for (int i = 0; i < smallest.size; i++) {
+            int ordinal = smallest.ordinals[i];
+            double score = weight(smallest, smallest.fields[i]);
+            for (int l = 1; l < lists.size(); l++) {
+                PostingList list = lists.get(l);
+                int pos = list.seek(ordinal, cursors[l]);
+                cursors[l] = pos;
+                if (pos >= list.size || list.ordinals[pos] != ordinal) {
+                    continue candidates;
+                }
+                score += weight(list, list.fields[pos]);
+            }
+            hits.add(new Hit(ordinal, score));
+        }
+        return hits;
+    }
+
+    private List<Hit> union(List<PostingList> lists) {
+        // Merge the sorted lists with one cursor each; queries have few words, so a linear scan for
+        // the smallest head is cheaper than a heap
+        int[] cursors = new int[lists.size()];
+        List<Hit> hits = new ArrayList<>();
+        while (true) {
+            int ordinal = Integer.MAX_VALUE;
+            for (int l = 0; l < lists.size(); l++) {
+                PostingList list = lists.get(l);
+                if (cursors[l] < list.size && list.ordinals[cursors[l]] < ordinal) {
+                    ordinal = list.ordinals[cursors[l]];
+                }
+            }
+            if (ordinal == Integer.MAX_VALUE) {
+                return hits;
+            }
+            double score = 0;
+            for (int l = 0; l < lists.size(); l++) {
+                PostingList list = lists.get(l);
+                if (cursors[l] < list.size && list.ordinals[cursors[l]] == ordinal) {
+                    score += weight(list, list.fields[cursors[l]]);
+                    cursors[l]++;
+                }
+            }
+            hits.add(new Hit(ordinal, score));
+        }
+    }
+
+    /**
+     * Scores one matched word: rarer words count for more, and a title match outweighs an author
+     * match, which outweighs a genre match.
+     */
+    private double weight(PostingList list, int fields) {
+        double idf = Math.log(1.0 + (double) Math.max(documentCount, 1) / list.size);
+        double fieldWeight = 0;
+        if ((fields & TITLE) != 0) {
+            fieldWeight += 3;
+        }
+        if ((fields & AUTHOR) != 0) {
+            fieldWeight += 2;
+        }
+        if ((fields & GENRE) != 0) {
+            fieldWeight += 1;
+        }
+        return idf * fieldWeight;
+    }
+
+    private static Map<String, Integer> fieldsByTerm(Book book) {
+        Map<String, Integer> fields = new HashMap<>();
+        for (String term : tokenize(book.getTitle())) {
+            fields.merge(term, TITLE, (a, b) -> a | b);
+        }
+        for (String term : tokenize(book.getAuthor())) {
+            fields.merge(term, AUTHOR, (a, b) -> a | b);
+        }
+        for (String term : tokenize(book.getGenre())) {
+            fields.merge(term, GENRE, (a, b) -> a | b);
+        }
+        return fields;
+    }
+
+    /**
+     * Sorted list of book ordinals containing one word, stored in primitive arrays.
+     */
+    private static final class PostingList {
+        int[] ordinals = new int[2];
+        byte[] fields = new byte[2];
+        int size;
+
+        void add(int ordinal, int fieldMask) {
+            int pos = seek(ordinal, 0);
+            if (pos < size && ordinals[pos] == ordinal) {
+                fields[pos] |= (byte) fieldMask;
+                return;
+            }
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                fields = Arrays.copyOf(fields, size * 2);
+            }
+            System.arraycopy(ordinals, pos, ordinals, pos + 1, size - pos);
+            System.arraycopy(fields, pos, fields, pos + 1, size - pos);
+            ordinals[pos] = ordinal;
+            fields[pos] = (byte) fieldMask;
+            size++;
+        }
+
+        void remove(int ordinal) {
+            int pos = seek(ordinal, 0);
+            if (pos < size && ordinals[pos] == ordinal) {
+                System.arraycopy(ordinals, pos + 1, ordinals, pos, size - pos - 1);
+                System.arraycopy(fields, pos + 1, fields, pos, size - pos - 1);
+                size--;
+            }
+        }
+
+        /**
+         * Finds the first position at or after {@code from} holding an ordinal no smaller than the target.
+         * New books get the highest ordinal so far, which makes appending the common case cheap.
+         */
+        int seek(int ordinal, int from) {
+            if (size == 0 || ordinals[size - 1] < ordinal) {
+                return size;
+            }
+            int pos = Arrays.binarySearch(ordinals, from, size, ordinal);
+            return pos >= 0 ? pos : -pos - 1;
+        }
+    }
+}
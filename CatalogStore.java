@@ -0,0 +1,61 @@
+package com.example;
+
+/**
+ * Primary storage for the books of a {@link Library} in the Library Management System (LMS).
+ * <p>
+ * Every book added to a store gets an internal ordinal: its position in the store, assigned in the
+ * order books are added and never reused. The library's title and full-text indexes refer to books by
+ * ordinal, so they work unchanged on any store. Two stores are provided:
+ * </p>
+ * <ul>
+ *     <li>{@link ObjectCatalogStore} keeps each {@link Book} as an object; this is the default.</li>
+ *     <li>{@link ColumnarCatalogStore} keeps each field in its own array and hands out {@link Book}
+ *     views, using far less memory for very large catalogs.</li>
+ * </ul>
+ */
+interface CatalogStore {
+    /**
+     * Adds a book to the store.
+     *
+     * @param book the book to add
+     * @return the ordinal assigned to the book
+     */
+    int add(Book book);
+
+    /**
+     * Gets the book at an ordinal.
+     *
+     * @param ordinal the ordinal of the book
+     * @return the book, or null if there is no book at that ordinal or it has been removed
+     */
+    Book get(int ordinal);
+
+    /**
+     * Finds the ordinal of a book by its ID.
+     *
+     * @param id the ID of the book
+     * @return the ordinal of the book, or -1 if it is not in the store
+     */
+    int find(LibraryId id);
+
+    /**
+     * Removes the book at an ordinal. The ordinal is not reused.
+     *
+     * @param ordinal the ordinal of the book to remove
+     */
+    void remove(int ordinal);
+
+    /**
+     * Gets the number of books in the store.
+     *
+     * @return the number of books that have been added and not removed
+     */
+    int size();
+
+    /**
+     * Gets the upper bound of the ordinals assigned so far.
+     *
+     * @return one more than the highest ordinal ever assigned, or 0 if the store has never held a book
+     */
+    int ordinalBound();
+}
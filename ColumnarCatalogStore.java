@@ -0,0 +1,358 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Catalog store that keeps each book field in its own array, for very large catalogs.
+ * <p>
+ * A book takes one slot in each column instead of being an object of its own:
+ * </p>
+ * <ul>
+ *     <li>the ID is two <code>long</code> values in primitive arrays,</li>
+ *     <li>author and genre are dictionary-encoded: each distinct value is stored once and books hold
+ *     an <code>int</code> code,</li>
+ *     <li>availability and removal are single bits,</li>
+ *     <li>lookup by ID uses an open-addressing table of ordinals rather than map entries.</li>
+ * </ul>
+ * <p>
+ * Apart from its title, a book therefore costs around 40 bytes instead of the 200 or more taken by a
+ * {@link Book} object, its ID and its hash map entry. {@link #get(int)} returns a lightweight
+ * {@link Book} view that reads and writes the columns, so callers can keep using the {@link Book} API.
+ * Views of the same book are equal to each other.
+ * </p>
+ * <p>
+ * Like {@link Library}, this class is meant to be used from one thread at a time. Dictionary entries
+ * are kept for the life of the store even if no book uses them any more.
+ * </p>
+ */
+class ColumnarCatalogStore implements CatalogStore {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_TABLE_LENGTH = 1 << 30; // Largest power of two an int array can hold
+
+    private long[] idHigh;
+    private long[] idLow;
+    private String[] titles;
+    private int[] authorCodes;
+    private int[] genreCodes;
+    private final BitSet available = new BitSet();
+    private final BitSet removed = new BitSet();
+    private final StringDictionary authors = new StringDictionary();
+    private final StringDictionary genres = new StringDictionary();
+
+    private int[] slots;     // Open-addressing table of ordinal + 1; 0 marks an empty slot
+    private int slotsInUse;  // Occupied slots, including those of removed books
+    private int count;       // Ordinals assigned so far
+    private int size;        // Books not removed
+
+    /**
+     * Constructs an empty store.
+     */
+    ColumnarCatalogStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty store sized for the expected number of books.
+     *
+     * @param expectedBooks the number of books the store should hold without growing
+     */
+    ColumnarCatalogStore(int expectedBooks) {
+        int capacity = Math.max(expectedBooks, INITIAL_CAPACITY);
+        idHigh = new long[capacity];
+        idLow = new long[capacity];
+        titles = new String[capacity];
+        authorCodes = new int[capacity];
+        genreCodes = new int[capacity];
+        slots = new int[tableLength(capacity)];
+    }
+
+    @Override
+    public int add(Book book) {
+        if (count == titles.length) {
+            grow();
+        }
+        int ordinal = count++;
+        LibraryId id = book.getId();
+        idHigh[ordinal] = id.getMostSignificantBits();
+        idLow[ordinal] = id.getLeastSignificantBits();
+        titles[ordinal] = book.getTitle();
+        authorCodes[ordinal] = authors.encode(book.getAuthor());
+        genreCodes[ordinal] = genres.encode(book.getGenre());
+        available.set(ordinal, book.isAvailable());
+        insertSlot(ordinal);
+        size++;
+        return ordinal;
+    }
+
+    @Override
+    public Book get(int ordinal) {
+        return isLive(ordinal) ? new BookView(ordinal) : null;
+    }
+
+    @Override
+    public int find(LibraryId id) {
+        long high = id.getMostSignificantBits();
+        long low = id.getLeastSignificantBits();
+        int mask = slots.length - 1;
+        for (int slot = hash(high, low) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int ordinal = slots[slot] - 1;
+            if (idHigh[ordinal] == high && idLow[ordinal] == low && !removed.get(ordinal)) {
+                return ordinal;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void remove(int ordinal) {
+        if (isLive(ordinal)) {
+            removed.set(ordinal);
+            titles[ordinal] = null; // Let the title be collected; the other columns are primitives
+            size--;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int ordinalBound() {
+        return count;
+    }
+
+    /**
+     * Gets the number of distinct authors and genres stored, for sizing and diagnostics.
+     *
+     * @return the number of dictionary entries for authors plus those for genres
+     */
+    int dictionarySize() {
+        return authors.size() + genres.size();
+    }
+
+    /**
+     * Gets the number of slots in the ID table, for sizing and diagnostics.
+     *
+     * @return the length of the open-addressing table
+     */
+    int idTableLength() {
+        return slots.length;
+    }
+
+    /**
+     * Computes the ID table length that keeps the given number of entries at most half full: twice the
+     * next power of two, capped at the largest table an array can hold.
+     *
+     * @param entries the number of entries to hold
+     * @return the table length, a power of two
+     */
+    static int tableLength(long entries) {
+        long length = Long.highestOneBit(Math.max(entries, 1) * 2 - 1) << 1;
+        return (int) Math.min(length, MAX_TABLE_LENGTH);
+    }
+
+    private boolean isLive(int ordinal) {
+        return ordinal >= 0 && ordinal < count && !removed.get(ordinal);
+    }
+
+    private void grow() {
+        int capacity = titles.length * 2;
+        idHigh = Arrays.copyOf(idHigh, capacity);
+        idLow = Arrays.copyOf(idLow, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        authorCodes = Arrays.copyOf(authorCodes, capacity);
+        genreCodes = Arrays.copyOf(genreCodes, capacity);
+    }
+
+    private void insertSlot(int ordinal) {
+        if ((slotsInUse + 1L) * 2 > slots.length) {
+            // Slots of removed books count towards the load. When live books fill at most a quarter of
+            // the table, rebuilding at the same length clears them; otherwise the table doubles.
+            if ((size + 1L) * 4 <= slots.length) {
+                rehash(slots.length);
+            } else if (slots.length < MAX_TABLE_LENGTH) {
+                rehash(slots.length * 2);
+            }
+        }
+        if (slotsInUse + 1 >= slots.length) {
+            // Only reached at the maximum length, which may then fill beyond half
+            if (slotsInUse == size) {
+                throw new IllegalStateException("Too many books for the ID table: " + size);
+            }
+            rehash(slots.length);
+        }
+        int mask = slots.length - 1;
+        int slot = hash(idHigh[ordinal], idLow[ordinal]) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = ordinal + 1;
+        slotsInUse++;
+    }
+
+    /**
+     * Rebuilds the ID table with the given number of slots, dropping the entries of removed books.
+     */
+    private void rehash(int length) {
+        slots = new int[length];
+        slotsInUse = 0;
+        int mask = slots.length - 1;
+        for (int ordinal = 0; ordinal < count; ordinal++) {
+            if (removed.get(ordinal)) {
+                continue;
+            }
+            int slot = hash(idHigh[ordinal], idLow[ordinal]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = ordinal + 1;
+            slotsInUse++;
+        }
+    }
+
+    private static int hash(long high, long low) {
+        long h = (high ^ low) * 0x9E3779B97F4A7C15L; // Spread time-ordered IDs across the table
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Assigns a small integer code to each distinct string.
+     */
+    private static final class StringDictionary {
+        private static final int NULL_CODE = -1;
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            if (value == null) {
+                return NULL_CODE;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        String decode(int code) {
+            return code == NULL_CODE ? null : values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+
+    /**
+     * A {@link Book} that reads and writes one row of the store. It holds nothing but its ordinal.
+     */
+    private final class BookView extends Book {
+        private final int ordinal;
+
+        BookView(int ordinal) {
+            super((LibraryId) null, null, null, null, false);
+            this.ordinal = ordinal;
+        }
+
+        @Override
+        public String getBookID() {
+            return getId().toString();
+        }
+
+        @Override
+        public LibraryId getId() {
+            return new LibraryId(idHigh[ordinal], idLow[ordinal]);
+        }
+
+        @Override
+        public String getTitle() {
+            return titles[ordinal];
+        }
+
+        @Override
+        public void setTitle(String title) {
+            titles[ordinal] = title;
+        }
+
+        @Override
+        public String getAuthor() {
+            return authors.decode(authorCodes[ordinal]);
+        }
+
+        @Override
+        public void setAuthor(String author) {
+            authorCodes[ordinal] = authors.encode(author);
+        }
+
+        @Override
+        public String getGenre() {
+            return genres.decode(genreCodes[ordinal]);
+        }
+
+        @Override
+        public void setGenre(String genre) {
+            genreCodes[ordinal] = genres.encode(genre);
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return available.get(ordinal);
+        }
+
+        @Override
+        public void setAvailable(boolean availability) {
+            available.set(ordinal, availability);
+        }
+
+        @Override
+        boolean compareAndSetAvailable(boolean expected, boolean availability) {
+            synchronized (ColumnarCatalogStore.this) {
+                if (available.get(ordinal) != expected) {
+                    return false;
+                }
+                available.set(ordinal, availability);
+                return true;
+            }
+        }
+
+        @Override
+        int getOrdinal() {
+            return ordinal;
+        }
+
+        @Override
+        void setOrdinal(int ordinal) {
+            throw new UnsupportedOperationException("The ordinal of a columnar book is fixed");
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BookView)) {
+                return false;
+            }
+            BookView other = (BookView) o;
+            return ordinal == other.ordinal && store() == other.store();
+        }
+
+        @Override
+        public int hashCode() {
+            return ordinal;
+        }
+
+        private ColumnarCatalogStore store() {
+            return ColumnarCatalogStore.this;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A thread-safe library for the Library Management System (LMS), for circulation by many users at once.
+ * <p>
+ * Books are kept in a {@link ConcurrentHashMap}. Borrowing and returning flip a book's availability
+ * with a single compare-and-set, so when several users borrow the same book at the same time exactly
+ * one of them succeeds. Transactions are appended to a lock-free queue after the availability changes,
+ * so entries for the same book logged by different threads at nearly the same moment may appear in
+ * either order.
+ * </p>
+ * <p>
+ * Unlike {@link Library}, this class does not keep search indexes; it covers the operations used at the
+ * circulation desk.
+ * </p>
+ */
+class ConcurrentLibrary {
+    private final ConcurrentHashMap<LibraryId, Book> books = new ConcurrentHashMap<>();
+    private final Queue<Transaction> transactions = new ConcurrentLinkedQueue<>();
+    private final IdGenerator idGenerator;
+
+    /**
+     * Constructs an empty library that creates time-ordered IDs.
+     */
+    ConcurrentLibrary() {
+        this(IdGenerator.timeOrdered());
+    }
+
+    /**
+     * Constructs an empty library that creates new IDs with the given generator.
+     *
+     * @param idGenerator the source of new book and transaction IDs
+     */
+    ConcurrentLibrary(IdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
+    }
+
+    /**
+     * Adds a new book to the library.
+     *
+     * @param title        the title of the book
+     * @param author       the author of the book
+     * @param genre        the genre of the book
+     * @param availability the availability status of the book (true if available, false otherwise)
+     * @return the book that was added
+     */
+    public Book addBook(String title, String author, String genre, boolean availability) {
+        Book book = new Book(idGenerator.next(), title, author, genre, availability);
+        books.put(book.getId(), book);
+        return book;
+    }
+
+    /**
+     * Deletes a book from the library by its unique ID.
+     *
+     * @param bookID the ID of the book to be removed
+     */
+    public void deleteBookByID(String bookID) {
+        LibraryId id = LibraryId.of(bookID);
+        if (id != null) {
+            books.remove(id);
+        }
+    }
+
+    /**
+     * Retrieves a book by its unique ID.
+     *
+     * @param bookId the ID of the book to retrieve
+     * @return the book with the specified ID, or null if not found
+     */
+    public Book getBookByID(String bookId) {
+        LibraryId id = LibraryId.of(bookId);
+        return id == null ? null : books.get(id);
+    }
+
+    /**
+     * Retrieves all books in the library.
+     *
+     * @return a snapshot of the books in the library, in no particular order
+     */
+    public List<Book> getBooks() {
+        return new ArrayList<>(books.values());
+    }
+
+    /**
+     * Borrows a book by marking it as unavailable and logging the transaction.
+     * Safe to call from many threads; at most one concurrent borrower of the same book succeeds.
+     *
+     * @param userId the ID of the user borrowing the book
+     * @param bookId the ID of the book to borrow
+     * @return true if the book was successfully borrowed, false otherwise
+     */
+    public boolean borrowBook(String userId, String bookId) {
+        LibraryId id = LibraryId.of(bookId);
+        Book book = id == null ? null : books.get(id);
+        if (book != null && book.compareAndSetAvailable(true, false)) {
+            transactions.add(new Transaction(idGenerator.next(), userId, id, "borrow"));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns a borrowed book by marking it as available and logging the transaction.
+     * Safe to call from many threads; at most one concurrent return of the same book succeeds.
+     *
+     * @param userId the ID of the user returning the book
+     * @param bookId the ID of the book to return
+     * @return true if the book was successfully returned, false otherwise
+     */
+    public boolean returnBook(String userId, String bookId) {
+        LibraryId id = LibraryId.of(bookId);
+        Book book = id == null ? null : books.get(id);
+        if (book != null && book.compareAndSetAvailable(false, true)) {
+            transactions.add(new Transaction(idGenerator.next(), userId, id, "return"));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Retrieves the transactions logged so far.
+     *
+     * @return a snapshot of the transactions, in the order they were appended
+     */
+    public List<Transaction> getTransactions() {
+        return new ArrayList<>(transactions);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+class ConcurrentLibraryTest {
+
+    private static final int THREADS = 64;
+    private static final int BOOKS = 100;
+
+    private ConcurrentLibrary library;
+    private List<Book> books;
+
+    @BeforeEach
+    public void setUp() {
+        library = new ConcurrentLibrary();
+        for (int i = 0; i < BOOKS; i++) {
+            library.addBook("Book " + i, "Author", "Genre", true);
+        }
+        books = library.getBooks();
+    }
+
+    @Test
+    public void testConcurrentBorrow_EachBookBorrowedOnce() throws Exception {
+        AtomicInteger successes = new AtomicInteger();
+        runConcurrently(thread -> {
+            for (Book book : books) {
+                if (library.borrowBook("user" + thread, book.getBookID())) {
+                    successes.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(BOOKS, successes.get()); // Exactly one of the 64 borrowers won each book
+        assertEquals(BOOKS, library.getTransactions().size());
+        for (Book book : books) {
+            assertFalse(book.isAvailable());
+        }
+    }
+
+    @Test
+    public void testConcurrentBorrowAndReturn_NoDoubleCheckouts() throws Exception {
+        AtomicIntegerArray holders = new AtomicIntegerArray(BOOKS);
+        AtomicInteger violations = new AtomicInteger();
+        AtomicInteger borrows = new AtomicInteger();
+        AtomicInteger returns = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 5_000; i++) {
+                int index = random.nextInt(BOOKS);
+                String bookId = books.get(index).getBookID();
+                if (library.borrowBook("user" + thread, bookId)) {
+                    borrows.incrementAndGet();
+                    if (holders.incrementAndGet(index) > 1) {
+                        violations.incrementAndGet();
+                    }
+                    holders.decrementAndGet(index);
+                    assertTrue(library.returnBook("user" + thread, bookId));
+                    returns.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(0, violations.get());
+        assertEquals(borrows.get(), returns.get());
+        assertEquals(borrows.get() + returns.get(), library.getTransactions().size());
+        for (Book book : books) {
+            assertTrue(book.isAvailable());
+        }
+    }
+
+    private interface Worker {
+        void run(int thread) throws Exception;
+    }
+
+    private void runConcurrently(Worker worker) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                worker.run(thread);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,521 @@
+package com.example;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.sql.Wrapper;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A bounded pool of database connections for the Library Management System (LMS).
+ * <p>
+ * Connections handed out by {@link #getConnection()} are wrappers: calling {@link Connection#close()}
+ * returns the underlying connection to the pool instead of closing it. Statements, metadata and result
+ * sets obtained through a wrapper are wrapped as well, so their <code>getConnection()</code> leads back to
+ * the wrapper rather than to the pooled connection. The pool
+ * </p>
+ * <ul>
+ *     <li>never opens more than the maximum number of connections, making callers wait up to the acquire timeout,</li>
+ *     <li>validates idle connections before handing them out,</li>
+ *     <li>closes connections that stay idle too long, while keeping at least the minimum number open, and</li>
+ *     <li>logs a warning for connections that are held longer than the leak threshold, with the stack trace of
+ *     the borrower, and counts them in {@link Stats#getLeaks()}.</li>
+ * </ul>
+ *
+ * @author Jennifer Lantigua
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final Logger LOG = Logger.getLogger(ConnectionPool.class.getName());
+
+    /** The JDBC objects that can lead back to their connection and are therefore wrapped. */
+    private static final Set<Class<?>> WRAPPED_TYPES = Set.of(Statement.class, PreparedStatement.class,
+            CallableStatement.class, DatabaseMetaData.class, ResultSet.class);
+
+    /**
+     * Opens new physical connections for the pool.
+     */
+    public interface ConnectionFactory {
+        /**
+         * Opens a new connection to the database.
+         *
+         * @return the new connection
+         * @throws SQLException if the connection cannot be opened
+         */
+        Connection create() throws SQLException;
+    }
+
+    private final ConnectionFactory factory;
+    private final int minSize;
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final int validationTimeoutSeconds;
+
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Map<PooledConnection, Boolean> borrowed = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+
+    /**
+     * Constructs a pool and opens its minimum number of connections in the background.
+     *
+     * @param factory                  opens new physical connections
+     * @param minSize                  the number of connections kept open even when idle
+     * @param maxSize                  the maximum number of open connections
+     * @param acquireTimeoutMillis     how long {@link #getConnection()} waits for a free connection
+     * @param idleTimeoutMillis        how long a connection above the minimum may stay idle before it is closed
+     * @param leakThresholdMillis      how long a connection may be held before it is reported as a possible leak (0 disables)
+     * @param validationTimeoutSeconds the timeout passed to {@link Connection#isValid(int)} when validating
+     */
+    public ConnectionPool(ConnectionFactory factory, int minSize, int maxSize, long acquireTimeoutMillis,
+                          long idleTimeoutMillis, long leakThresholdMillis, int validationTimeoutSeconds) {
+        if (minSize < 0 || maxSize <= 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.factory = factory;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMillis, leakThresholdMillis > 0 ? leakThresholdMillis : Long.MAX_VALUE) / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new one if none is idle and the pool is not full.
+     * Close the returned connection to give it back.
+     *
+     * @return a validated connection
+     * @throws SQLTimeoutException if no connection becomes available within the acquire timeout
+     * @throws SQLException        if the pool is closed or a new connection cannot be opened
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLTimeoutException("Timed out after " + acquireTimeoutMillis
+                        + " ms waiting for a database connection (" + maxSize + " in use)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        totalWaitNanos.addAndGet(System.nanoTime() - start);
+
+        try {
+            PooledConnection pooled = takeIdle();
+            if (pooled == null) {
+                pooled = open();
+            }
+            pooled.borrowedAt = System.currentTimeMillis();
+            pooled.borrower = leakThresholdMillis > 0 ? new Throwable("Connection borrowed here") : null;
+            borrowed.put(pooled, Boolean.TRUE);
+            borrowCount.incrementAndGet();
+            return pooled.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Takes the most recently used idle connection that is still valid, closing any invalid ones found.
+     */
+    private PooledConnection takeIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (isValid(pooled.physical)) {
+                return pooled;
+            }
+            destroy(pooled);
+        }
+        return null;
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection physical = factory.create();
+        total.incrementAndGet();
+        createdCount.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns a borrowed connection to the pool, resetting any state the borrower changed.
+     */
+    private void release(PooledConnection pooled) {
+        borrowed.remove(pooled);
+        try {
+            if (closed || pooled.physical.isClosed()) {
+                destroy(pooled);
+                return;
+            }
+            if (!pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+            pooled.lastUsed = System.currentTimeMillis();
+            idle.offerFirst(pooled);
+        } catch (SQLException e) {
+            destroy(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void destroy(PooledConnection pooled) {
+        total.decrementAndGet();
+        destroyedCount.incrementAndGet();
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            // The connection is being discarded anyway
+        }
+    }
+
+    /**
+     * Closes connections idle longer than the idle timeout, opens connections up to the minimum size,
+     * and reports connections held longer than the leak threshold.
+     */
+    private void housekeep() {
+        if (closed) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+
+        // The least recently used connections sit at the tail of the deque
+        PooledConnection oldest;
+        while (total.get() > minSize && (oldest = idle.peekLast()) != null && now - oldest.lastUsed > idleTimeoutMillis) {
+            if (idle.removeLastOccurrence(oldest)) {
+                destroy(oldest);
+            }
+        }
+
+        while (total.get() < minSize && permits.tryAcquire()) {
+            try {
+                PooledConnection pooled = open();
+                pooled.lastUsed = now;
+                idle.offerLast(pooled);
+            } catch (SQLException e) {
+                break; // Try again on the next run
+            } finally {
+                permits.release();
+            }
+        }
+
+        if (leakThresholdMillis > 0) {
+            for (PooledConnection pooled : borrowed.keySet()) {
+                if (!pooled.leakReported && now - pooled.borrowedAt > leakThresholdMillis) {
+                    pooled.leakReported = true;
+                    leakCount.incrementAndGet();
+                    LOG.log(Level.WARNING, "Possible connection leak: connection held for " + (now - pooled.borrowedAt) + " ms",
+                            pooled.borrower);
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes a snapshot of the pool's current size and lifetime counters.
+     *
+     * @return the pool statistics
+     */
+    public Stats getStats() {
+        long borrows = borrowCount.get();
+        return new Stats(total.get(), idle.size(), borrowed.size(), permits.getQueueLength(), borrows,
+                createdCount.get(), destroyedCount.get(), timeoutCount.get(), leakCount.get(),
+                borrows == 0 ? 0 : totalWaitNanos.get() / borrows / 1_000_000.0);
+    }
+
+    /**
+     * Closes the pool and every idle connection. Borrowed connections are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        List<PooledConnection> drained = new ArrayList<>();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            drained.add(pooled);
+        }
+        for (PooledConnection connection : drained) {
+            destroy(connection);
+        }
+    }
+
+    /**
+     * A physical connection owned by the pool, with its bookkeeping.
+     */
+    private final class PooledConnection {
+        final Connection physical;
+        volatile long lastUsed = System.currentTimeMillis();
+        volatile long borrowedAt;
+        volatile Throwable borrower;
+        volatile boolean leakReported;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        /**
+         * Creates the wrapper given to a borrower. Closing it returns the connection to the pool once;
+         * after that every call fails as if the connection were closed.
+         */
+        Connection newHandle() {
+            leakReported = false;
+            InvocationHandler handler = new InvocationHandler() {
+                private boolean returned;
+
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    switch (method.getName()) {
+                        case "close":
+                            if (!returned) {
+                                returned = true;
+                                release(PooledConnection.this);
+                            }
+                            return null;
+                        case "isClosed":
+                            return returned || physical.isClosed();
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "Pooled " + physical;
+                        default:
+                            if (returned) {
+                                throw new SQLException("Connection is closed");
+                            }
+                            if (isUnwrap(method)) {
+                                return unwrap(proxy, physical, Connection.class, method, (Class<?>) args[0]);
+                            }
+                            return wrap((Connection) proxy, proxy, method, invokeTarget(physical, method, args));
+                    }
+                }
+            };
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, handler);
+        }
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static boolean isUnwrap(Method method) {
+        return method.getDeclaringClass() == Wrapper.class;
+    }
+
+    /**
+     * Handles {@link Wrapper#unwrap} and {@link Wrapper#isWrapperFor} on a wrapper. Interfaces the wrapper
+     * implements resolve to the wrapper itself. Other subtypes of the wrapped type, such as a driver's own
+     * connection class, are refused, since they would expose the pooled object and let a caller close it
+     * behind the pool's back. Unrelated driver extension interfaces are delegated.
+     *
+     * @param proxy       the wrapper
+     * @param target      the pooled object it wraps
+     * @param wrappedType the JDBC interface the wrapper implements
+     * @param method      <code>unwrap</code> or <code>isWrapperFor</code>
+     * @param iface       the requested interface
+     */
+    private static Object unwrap(Object proxy, Object target, Class<?> wrappedType, Method method, Class<?> iface)
+            throws SQLException {
+        boolean unwrap = method.getName().equals("unwrap");
+        if (iface.isInstance(proxy)) {
+            return unwrap ? proxy : Boolean.TRUE;
+        }
+        if (wrappedType.isAssignableFrom(iface)) {
+            if (unwrap) {
+                throw new SQLException("A pooled " + wrappedType.getSimpleName() + " cannot be unwrapped to " + iface.getName());
+            }
+            return Boolean.FALSE;
+        }
+        return unwrap ? ((Wrapper) target).unwrap(iface) : ((Wrapper) target).isWrapperFor(iface);
+    }
+
+    /**
+     * Wraps a statement, metadata or result set returned by a JDBC call so it cannot hand out the
+     * pooled connection; any other value is returned as is.
+     *
+     * @param handle the connection wrapper the object was obtained through
+     * @param owner  the wrapper whose method returned the object
+     * @param method the method that returned the object
+     * @param result the value it returned
+     */
+    private static Object wrap(Connection handle, Object owner, Method method, Object result) {
+        Class<?> type = method.getReturnType();
+        if (result == null || !WRAPPED_TYPES.contains(type)) {
+            return result;
+        }
+        InvocationHandler handler = (proxy, m, args) -> {
+            switch (m.getName()) {
+                case "getConnection":
+                    return handle;
+                case "getStatement":
+                    if (owner instanceof Statement) {
+                        return owner;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled " + result;
+                default:
+                    if (isUnwrap(m)) {
+                        return unwrap(proxy, result, type, m, (Class<?>) args[0]);
+                    }
+                    break;
+            }
+            return wrap(handle, proxy, m, invokeTarget(result, m, args));
+        };
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    /**
+     * Snapshot of the pool's size and counters.
+     */
+    public static final class Stats {
+        private final int total;
+        private final int idle;
+        private final int active;
+        private final int waiting;
+        private final long borrows;
+        private final long created;
+        private final long destroyed;
+        private final long timeouts;
+        private final long leaks;
+        private final double averageWaitMillis;
+
+        Stats(int total, int idle, int active, int waiting, long borrows, long created, long destroyed,
+              long timeouts, long leaks, double averageWaitMillis) {
+            this.total = total;
+            this.idle = idle;
+            this.active = active;
+            this.waiting = waiting;
+            this.borrows = borrows;
+            this.created = created;
+            this.destroyed = destroyed;
+            this.timeouts = timeouts;
+            this.leaks = leaks;
+            this.averageWaitMillis = averageWaitMillis;
+        }
+
+        /** @return the number of open connections, idle or borrowed */
+        public int getTotal() {
+            return total;
+        }
+
+        /** @return the number of connections waiting in the pool */
+        public int getIdle() {
+            return idle;
+        }
+
+        /** @return the number of connections currently borrowed */
+        public int getActive() {
+            return active;
+        }
+
+        /** @return the number of callers waiting for a connection */
+        public int getWaiting() {
+            return waiting;
+        }
+
+        /** @return the number of connections handed out since the pool was created */
+        public long getBorrows() {
+            return borrows;
+        }
+
+        /** @return the number of physical connections opened */
+        public long getCreated() {
+            return created;
+        }
+
+        /** @return the number of physical connections closed */
+        public long getDestroyed() {
+            return destroyed;
+        }
+
+        /** @return the number of callers that gave up waiting for a connection */
+        public long getTimeouts() {
+            return timeouts;
+        }
+
+        /** @return the number of connections reported as possible leaks */
+        public long getLeaks() {
+            return leaks;
+        }
+
+        /** @return the average time callers waited for a connection, in milliseconds */
+        public double getAverageWaitMillis() {
+            return averageWaitMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("total=%d, idle=%d, active=%d, waiting=%d, borrows=%d, created=%d, destroyed=%d, "
+                            + "timeouts=%d, leaks=%d, avgWait=%.2fms", total, idle, active, waiting, borrows,
+                    created, destroyed, timeouts, leaks, averageWaitMillis);
+        }
+    }
+}
@@ -8,9 +8,13 @@ import java.sql.SQLException;
  * DatabaseConnector class is responsible for establishing a connection to the MySQL database.
  * It encapsulates the database connection details and provides a method to get a connection object.
  *
- * <p>This class uses the JDBC API to connect to the MySQL database.</p>
+ * <p>This class uses the JDBC API to connect to the MySQL database. Connections are shared through a
+ * {@link ConnectionPool}, so callers should close each connection as soon as they are done with it
+ * to hand it back to the pool. The pool size and timeouts can be changed with the system properties
+ * <code>lms.pool.minSize</code>, <code>lms.pool.maxSize</code>, <code>lms.pool.acquireTimeoutMs</code>,
+ * <code>lms.pool.idleTimeoutMs</code> and <code>lms.pool.leakThresholdMs</code>.</p>
  *
- * <p>Database URL: jdbc:mysql://localhost:3306/library_db</p>
+ * <p>Database URL: jdbc:mysql://localhost:3306/library_db (with batched statement rewriting enabled)</p>
  * <p>Database User: root</p>
  * <p>Database Password: Mypassword123</p>
  *
@@ -20,20 +24,58 @@ import java.sql.SQLException;
  */
 public class DatabaseConnector {
 
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/library_db";
+    // rewriteBatchedStatements lets the MySQL driver send a JDBC batch as multi-row INSERTs
+    private static final String DB_URL = "jdbc:mysql://localhost:3306/library_db?rewriteBatchedStatements=true";
     private static final String DB_USER = "root";
     private static final String DB_PASSWORD = "Mypassword123";
 
     /**
-     * Establishes a connection to the database.
+     * Holds the shared pool, which is created the first time a connection is requested.
+     */
+    private static final class PoolHolder {
+        static final ConnectionPool POOL = new ConnectionPool(
+                DatabaseConnector::openConnection,
+                Integer.getInteger("lms.pool.minSize", 2),
+                Integer.getInteger("lms.pool.maxSize", 10),
+                Long.getLong("lms.pool.acquireTimeoutMs", 5_000),
+                Long.getLong("lms.pool.idleTimeoutMs", 600_000),
+                Long.getLong("lms.pool.leakThresholdMs", 60_000),
+                2);
+    }
+
+    /**
+     * Borrows a connection to the database from the shared pool.
      *
-     * <p>This method uses JDBC to connect to the MySQL database with the provided database URL,
-     * username, and password. It throws a {@link SQLException} if the connection fails.</p>
+     * <p>The connection is opened on first use and reused afterwards. Closing the returned
+     * connection returns it to the pool. It throws a {@link SQLException} if no connection
+     * can be obtained.</p>
      *
      * @return a {@link Connection} object representing the database connection
-     * @throws SQLException if a database access error occurs or the URL is incorrect
+     * @throws SQLException if a database access error occurs, the URL is incorrect, or the pool is exhausted
      */
     public static Connection getConnection() throws SQLException {
+        return PoolHolder.POOL.getConnection();
+    }
+
+    /**
+     * Opens a new, unpooled connection to the database.
+     *
+     * <p>This method uses JDBC to connect to the MySQL database with the provided database URL,
+     * username, and password.</p>
+     *
+     * @return a new {@link Connection} object
+     * @throws SQLException if a database access error occurs or the URL is incorrect
+     */
+    static Connection openConnection() throws SQLException {
         return DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
     }
+
+    /**
+     * Gets the current size and usage counters of the shared connection pool.
+     *
+     * @return the pool statistics
+     */
+    public static ConnectionPool.Stats getPoolStats() {
+        return PoolHolder.POOL.getStats();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,134 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts of books per value of one field, such as genre or author, for browse facets in the
+ * Library Management System (LMS).
+ * <p>
+ * For every value the counts hold how many books have it and how many of those are available. The
+ * owning {@link Library} updates them as books are added, removed, changed, borrowed and returned,
+ * so reading the facets takes time proportional to the number of distinct values, not the number of
+ * books. Values are counted exactly as stored; a missing value is counted under the empty string.
+ * </p>
+ */
+class FacetCounts {
+    private final Map<String, int[]> counts = new HashMap<>(); // Value -> {total, available}
+
+    /**
+     * Counts a book with the given value.
+     *
+     * @param value     the book's value for this field
+     * @param available true if the book is available
+     */
+    void add(String value, boolean available) {
+        int[] count = counts.computeIfAbsent(key(value), k -> new int[2]);
+        count[0]++;
+        if (available) {
+            count[1]++;
+        }
+    }
+
+    /**
+     * Stops counting a book with the given value.
+     *
+     * @param value     the value the book was counted under
+     * @param available true if the book was counted as available
+     */
+    void remove(String value, boolean available) {
+        String key = key(value);
+        int[] count = counts.get(key);
+        if (count == null) {
+            return;
+        }
+        count[0]--;
+        if (available) {
+            count[1]--;
+        }
+        if (count[0] <= 0) {
+            counts.remove(key);
+        }
+    }
+
+    /**
+     * Records that a book counted under the given value became available or unavailable.
+     *
+     * @param value     the value the book is counted under
+     * @param available the new availability of the book
+     */
+    void availabilityChanged(String value, boolean available) {
+        int[] count = counts.get(key(value));
+        if (count != null) {
+            count[1] += available ? 1 : -1;
+        }
+    }
+
+    /**
+     * Gets the counts for one value.
+     *
+     * @param value the value to look up
+     * @return the facet for the value, or null if no book has it
+     */
+    Facet get(String value) {
+        String key = key(value);
+        int[] count = counts.get(key);
+        return count == null ? null : new Facet(key, count[0], count[1]);
+    }
+
+    /**
+     * Gets the counts for every value, largest first.
+     *
+     * @return the facets ordered by total count, then by value
+     */
+    List<Facet> toList() {
+        List<Facet> facets = new ArrayList<>(counts.size());
+        for (Map.Entry<String, int[]> entry : counts.entrySet()) {
+            facets.add(new Facet(entry.getKey(), entry.getValue()[0], entry.getValue()[1]));
+        }
+        facets.sort(Comparator.comparingInt(Facet::getTotal).reversed().thenComparing(Facet::getValue));
+        return facets;
+    }
+
+    private static String key(String value) {
+        return value == null ? "" : value;
+    }
+
+    /**
+     * The number of books, and of available books, that share one value.
+     */
+    static final class Facet {
+        private final String value;
+        private final int total;
+        private final int available;
+
+        Facet(String value, int total, int available) {
+            this.value = value;
+            this.total = total;
+            this.available = available;
+        }
+
+        /** @return the field value, such as a genre or author name */
+        String getValue() {
+            return value;
+        }
+
+        /** @return the number of books with the value */
+        int getTotal() {
+            return total;
+        }
+
+        /** @return the number of available books with the value */
+        int getAvailable() {
+            return available;
+        }
+
+        @Override
+        public String toString() {
+            return value + " (" + available + "/" + total + " available)";
+        }
+    }
+}
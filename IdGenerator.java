@@ -0,0 +1,42 @@
+package com.example;
+
+/**
+ * Source of new book, transaction and barcode IDs for the Library Management System (LMS).
+ * <p>
+ * {@link Library}, {@link ConcurrentLibrary} and {@link BookRepository} take a generator so the way IDs
+ * are made can be chosen per deployment or replaced in tests. Implementations must be safe to call from
+ * many threads at once.
+ * </p>
+ */
+public interface IdGenerator {
+    /**
+     * Creates a new ID that has not been returned before.
+     *
+     * @return a new ID
+     */
+    LibraryId next();
+
+    /**
+     * Gets the shared time-ordered generator, the default everywhere IDs are created.
+     * <p>
+     * IDs start with a millisecond timestamp (UUID version 7 layout), so IDs created later sort after
+     * earlier ones and new rows land at the end of an index on the ID instead of at random pages.
+     * Generation never blocks or takes a lock.
+     * </p>
+     *
+     * @return the time-ordered generator
+     */
+    static IdGenerator timeOrdered() {
+        return TimeOrderedIdGenerator.INSTANCE;
+    }
+
+    /**
+     * Gets a generator of random (version 4) IDs backed by {@link java.util.UUID#randomUUID()}.
+     * It draws on a shared secure random source and is slower under contention than {@link #timeOrdered()}.
+     *
+     * @return the random generator
+     */
+    static IdGenerator random() {
+        return LibraryId::random;
+    }
+}
@@ -3,10 +3,25 @@ package com.example;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * Manages a collection of books in the Library Management System (LMS).
@@ -16,19 +31,271 @@ import java.util.UUID;
  * </p>
  */
 class Library {
-    private List<Book> books;
+    /** Number of days a book may be kept, as in the GUI. */
+    static final int LOAN_DAYS = 28;
+
+    private CatalogStore catalog;    // Primary storage: book ID and internal ordinal -> book
+    private final List<Book> booksView = new CatalogView();
+    private TitleIndex titleIndex;   // Secondary index: case-folded title -> book ordinals
+    private CatalogSearchIndex searchIndex; // Full-text index over title, author and genre
+    private BitSet availableBooks;          // Ordinals of the books that are available
+    private int availableCount;             // Number of bits set in availableBooks
+    private FacetCounts genreFacets;        // Books and available books per genre
+    private FacetCounts authorFacets;       // Books and available books per author
+    private Map<LibraryId, String> borrowers; // Book ID -> ID of the user currently holding it
+    private Map<String, Set<LibraryId>> loansByUser;         // User ID -> books held, in borrow order
+    private OverdueScheduler overdueLoans;                   // Due dates of the books on loan
+    private Map<LibraryId, List<Transaction>> historyByBook; // Book ID -> its transactions, oldest first
+    private Map<String, List<Transaction>> historyByUser;    // User ID -> their transactions, oldest first
     private List<Transaction> transactions;
+    private TransactionJournal journal;     // Durable copy of the transactions, if attached
+    private long lastLsn;                   // Sequence number of the last journaled transaction
+    private IdGenerator idGenerator;        // Source of new book and transaction IDs
+    private StringPool stringPool;          // Shared instances of author and genre values
 
     /**
      * Constructs a Library object with an initial collection of sample books.
      */
     public Library() {
-        this.books = new ArrayList<>();
+        this(true);
+    }
+
+    /**
+     * Constructs a Library object, optionally seeded with the sample books.
+     * Restoring a library from saved state starts from an empty one.
+     *
+     * @param withSampleBooks true to add the sample books, false to start with an empty catalog
+     */
+    Library(boolean withSampleBooks) {
+        this(withSampleBooks, IdGenerator.timeOrdered());
+    }
+
+    /**
+     * Constructs a Library object that creates new IDs with the given generator.
+     *
+     * @param withSampleBooks true to add the sample books, false to start with an empty catalog
+     * @param idGenerator     the source of new book and transaction IDs
+     */
+    Library(boolean withSampleBooks, IdGenerator idGenerator) {
+        this(withSampleBooks, idGenerator, new ObjectCatalogStore());
+    }
+
+    /**
+     * Constructs a Library object that keeps its books in the given store.
+     * <p>
+     * Use a {@link ColumnarCatalogStore} for very large catalogs. The store must be empty.
+     * </p>
+     *
+     * @param withSampleBooks true to add the sample books, false to start with an empty catalog
+     * @param idGenerator     the source of new book and transaction IDs
+     * @param catalog         the store that holds the books
+     */
+    Library(boolean withSampleBooks, IdGenerator idGenerator, CatalogStore catalog) {
+        this.idGenerator = idGenerator;
+        this.catalog = catalog;
+        this.stringPool = new StringPool();
+        this.titleIndex = new TitleIndex();
+        this.searchIndex = new CatalogSearchIndex();
+        this.availableBooks = new BitSet();
+        this.genreFacets = new FacetCounts();
+        this.authorFacets = new FacetCounts();
+        this.borrowers = new HashMap<>();
+        this.loansByUser = new HashMap<>();
+        this.overdueLoans = new OverdueScheduler(LocalDate.now());
+        this.historyByBook = new HashMap<>();
+        this.historyByUser = new HashMap<>();
         this.transactions = new ArrayList<>();
+        if (!withSampleBooks) {
+            return;
+        }
         // Adding some sample books
-        books.add(new Book(UUID.randomUUID().toString(), "The Great Gatsby", "F. Scott Fitzgerald", "Fiction", true));
-        books.add(new Book(UUID.randomUUID().toString(), "1984", "George Orwell", "Dystopian", true));
-        books.add(new Book(UUID.randomUUID().toString(), "Moby Dick", "Herman Melville", "Adventure", true));
+        addBook("The Great Gatsby", "F. Scott Fitzgerald", "Fiction", true);
+        addBook("1984", "George Orwell", "Dystopian", true);
+        addBook("Moby Dick", "Herman Melville", "Adventure", true);
+    }
+
+    /**
+     * Attaches a journal so that every borrow and return is written to disk before it takes effect.
+     *
+     * @param journal the journal to append transactions to
+     */
+    void attachJournal(TransactionJournal journal) {
+        this.journal = journal;
+        this.lastLsn = journal.getLastLsn();
+    }
+
+    /**
+     * Gets the generator this library uses for new IDs.
+     *
+     * @return the ID generator
+     */
+    IdGenerator getIdGenerator() {
+        return idGenerator;
+    }
+
+    /**
+     * Gets the pool that deduplicates the author and genre values of this library's books.
+     *
+     * @return the string pool
+     */
+    StringPool getStringPool() {
+        return stringPool;
+    }
+
+    /**
+     * Gets the sequence number of the last transaction written to the attached journal.
+     *
+     * @return the last journal sequence number, or 0 if nothing has been journaled
+     */
+    long getLastLsn() {
+        return lastLsn;
+    }
+
+    /**
+     * Restores a book's availability from the last transaction recorded for it, without logging anything.
+     * Used when replaying the journal after a restart. A book still on loan keeps the due date recorded
+     * with its borrow; borrows journaled without one are due {@link #LOAN_DAYS} days after they were made.
+     *
+     * @param last the most recent transaction for the book
+     * @return true if the book is in the catalog, false if it is unknown
+     */
+    boolean restoreLoanState(Transaction last) {
+        Book book = getBook(last.getBookLibraryId());
+        if (book == null) {
+            return false;
+        }
+        boolean borrowed = "borrow".equals(last.getTransactionType());
+        setAvailable(book, !borrowed);
+        if (borrowed) {
+            LocalDate dueDate = last.getDueDate() != null
+                    ? last.getDueDate() : last.getDate().toLocalDate().plusDays(LOAN_DAYS);
+            setBorrower(book.getId(), last.getUserID(), dueDate);
+        } else {
+            clearBorrower(book.getId());
+        }
+        return true;
+    }
+
+    /**
+     * Records who holds a borrowed book, without logging anything. Used when loading a snapshot.
+     *
+     * @param bookId  the ID of the borrowed book
+     * @param userId  the ID of the user holding it
+     * @param dueDate the date the book is due back
+     */
+    void restoreBorrower(LibraryId bookId, String userId, LocalDate dueDate) {
+        if (catalog.find(bookId) >= 0) {
+            setBorrower(bookId, userId, dueDate);
+        }
+    }
+
+    /**
+     * Gets the user currently holding a book.
+     *
+     * @param bookId the ID of the book
+     * @return the ID of the user who borrowed the book, or null if it is not on loan
+     */
+    String getBorrower(LibraryId bookId) {
+        return borrowers.get(bookId);
+    }
+
+    /**
+     * Gets the date a borrowed book is due back.
+     *
+     * @param bookId the ID of the book
+     * @return the due date, or null if the book is not on loan
+     */
+    public LocalDate getDueDate(LibraryId bookId) {
+        return overdueLoans.getDueDate(bookId);
+    }
+
+    /**
+     * Retrieves the books that have become overdue since the previous check.
+     * <p>
+     * A book is overdue from the day after its due date. Due dates are kept in an {@link OverdueScheduler},
+     * so a check only visits the loans that fall due rather than every book on loan. Each overdue book is
+     * reported once; it is not reported again by later checks unless it is returned and borrowed again.
+     * </p>
+     *
+     * @param today the current date
+     * @return the newly overdue books, in no particular order
+     */
+    public List<Book> checkOverdue(LocalDate today) {
+        List<Book> overdue = new ArrayList<>();
+        overdueLoans.advanceTo(today, (bookId, userId, dueDate) -> overdue.add(getBook(bookId)));
+        return overdue;
+    }
+
+    /**
+     * Retrieves the books a user currently holds, in the order they were borrowed.
+     * <p>
+     * Loans are indexed by user, so this takes time proportional to the number of books the user holds.
+     * </p>
+     *
+     * @param userId the ID of the user
+     * @return the books on loan to the user, or an empty list if they hold none
+     */
+    public List<Book> loansFor(String userId) {
+        Set<LibraryId> loans = loansByUser.get(userId);
+        if (loans == null) {
+            return new ArrayList<>();
+        }
+        List<Book> result = new ArrayList<>(loans.size());
+        for (LibraryId bookId : loans) {
+            result.add(getBook(bookId));
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves every borrow and return of a book, oldest first.
+     * <p>
+     * Transactions are indexed by book, so this takes time proportional to the size of the result.
+     * The history is kept after the book is deleted.
+     * </p>
+     *
+     * @param bookId the ID of the book
+     * @return the book's transactions, or an empty list if it has none
+     */
+    public List<Transaction> historyFor(String bookId) {
+        LibraryId id = LibraryId.of(bookId);
+        return id == null ? new ArrayList<>() : historyFor(id);
+    }
+
+    /**
+     * Retrieves every borrow and return of a book, oldest first.
+     *
+     * @param bookId the ID of the book
+     * @return the book's transactions, or an empty list if it has none
+     */
+    public List<Transaction> historyFor(LibraryId bookId) {
+        List<Transaction> history = historyByBook.get(bookId);
+        return history == null ? new ArrayList<>() : new ArrayList<>(history);
+    }
+
+    /**
+     * Retrieves every borrow and return made by a user, oldest first.
+     *
+     * @param userId the ID of the user
+     * @return the user's transactions, or an empty list if they have none
+     */
+    public List<Transaction> userHistoryFor(String userId) {
+        List<Transaction> history = historyByUser.get(userId);
+        return history == null ? new ArrayList<>() : new ArrayList<>(history);
+    }
+
+    /**
+     * Appends replayed transactions to the history, without writing them to the journal again.
+     *
+     * @param replayed the transactions in the order they happened
+     * @param lsn      the journal sequence number of the last one
+     */
+    void restoreHistory(List<Transaction> replayed, long lsn) {
+        for (Transaction transaction : replayed) {
+            indexTransaction(transaction);
+        }
+        transactions.addAll(replayed);
+        lastLsn = Math.max(lastLsn, lsn);
     }
 
     /**
@@ -61,6 +328,21 @@ class Library {
         }
     }
 
+    /**
+     * Loads a large catalog file using several threads.
+     * <p>
+     * The file uses the same format as {@link #loadBooksFromFile(String)}. Instead of printing
+     * invalid rows, the load returns a report listing them along with the number of books loaded.
+     * </p>
+     *
+     * @param filePath the path to the file containing book data
+     * @return a summary of the rows loaded and rejected
+     * @throws IOException if the file cannot be read
+     */
+    public BulkLoadReport loadBooksInBulk(String filePath) throws IOException {
+        return new BulkBookLoader().load(this, Paths.get(filePath));
+    }
+
     /**
      * Adds a new book to the library.
      *
@@ -70,7 +352,37 @@ class Library {
      * @param availability the availability status of the book (true if available, false otherwise)
      */
     public void addBook(String title, String author, String genre, boolean availability) {
-        books.add(new Book(UUID.randomUUID().toString(), title, author, genre, availability));
+        addBook(new Book(idGenerator.next(), title, stringPool.intern(author), stringPool.intern(genre),
+                availability));
+    }
+
+    /**
+     * Adds a batch of already constructed books to the library, in order.
+     *
+     * @param batch the books to add
+     */
+    void addBooks(List<Book> batch) {
+        for (Book book : batch) {
+            addBook(book);
+        }
+    }
+
+    /**
+     * Adds a book to the catalog and to every index.
+     *
+     * @param book the book to add
+     */
+    private void addBook(Book book) {
+        int ordinal = catalog.add(book);
+        titleIndex.add(ordinal, book.getTitle());
+        searchIndex.add(ordinal, book);
+        boolean available = book.isAvailable();
+        if (available) {
+            availableBooks.set(ordinal);
+            availableCount++;
+        }
+        genreFacets.add(book.getGenre(), available);
+        authorFacets.add(book.getAuthor(), available);
     }
 
     /**
@@ -79,7 +391,9 @@ class Library {
      * @param title the title of the book to be removed
      */
     public void deleteBook(String title) {
-        books.removeIf(book -> book.getTitle().equalsIgnoreCase(title));
+        for (int ordinal : titleIndex.findExact(title)) {
+            removeBook(catalog.get(ordinal));
+        }
     }
 
     /**
@@ -88,7 +402,74 @@ class Library {
      * @param bookID the ID of the book to be removed
      */
     public void deleteBookByID(String bookID) {
-        books.removeIf(book -> book.getBookID().equals(bookID));
+        Book book = getBookByID(bookID);
+        if (book != null) {
+            removeBook(book);
+        }
+    }
+
+    /**
+     * Deletes several books by ID, such as a weeding list.
+     * <p>
+     * Each book is found through the ID index, so this takes time proportional to the number of IDs
+     * rather than the size of the catalog.
+     * </p>
+     *
+     * @param bookIds the IDs of the books to delete; unknown IDs are skipped
+     * @return the number of books deleted
+     */
+    public int deleteBooks(Collection<LibraryId> bookIds) {
+        int deleted = 0;
+        for (LibraryId bookId : bookIds) {
+            Book book = getBook(bookId);
+            if (book != null) {
+                removeBook(book);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Deletes every book that matches a filter, for example all books of a genre or author.
+     * <p>
+     * The catalog is visited once; matching books are removed from the catalog and every index as
+     * they are found.
+     * </p>
+     *
+     * @param filter selects the books to delete, for example a {@link BookFilter}
+     * @return the number of books deleted
+     */
+    public int deleteBooks(Predicate<Book> filter) {
+        int deleted = 0;
+        for (int ordinal = 0; ordinal < catalog.ordinalBound(); ordinal++) {
+            Book book = catalog.get(ordinal);
+            if (book != null && filter.test(book)) {
+                removeBook(book); // Ordinals stay fixed, so the scan can continue past a removed book
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Removes a book from the catalog and from every index.
+     *
+     * @param book the book to remove
+     */
+    private void removeBook(Book book) {
+        int ordinal = book.getOrdinal();
+        clearBorrower(book.getId());
+        titleIndex.remove(ordinal, book.getTitle());
+        searchIndex.remove(ordinal, book);
+        boolean available = availableBooks.get(ordinal);
+        if (available) {
+            availableBooks.clear(ordinal);
+            availableCount--;
+        }
+        genreFacets.remove(book.getGenre(), available);
+        authorFacets.remove(book.getAuthor(), available);
+        catalog.remove(ordinal); // Last, since a columnar book reads its fields from the store
     }
 
     /**
@@ -99,10 +480,36 @@ class Library {
      * @return true if the book was successfully borrowed, false otherwise
      */
     public boolean borrowBook(String userId, String bookId) {
-        Book book = getBookByID(bookId);
+        LibraryId id = LibraryId.of(bookId);
+        return id != null && borrowBook(userId, id);
+    }
+
+    /**
+     * Borrows a book by marking it as unavailable and logging the transaction.
+     * The book is due back {@link #LOAN_DAYS} days from today.
+     *
+     * @param userId the ID of the user borrowing the book
+     * @param bookId the ID of the book to borrow
+     * @return true if the book was successfully borrowed, false otherwise
+     */
+    public boolean borrowBook(String userId, LibraryId bookId) {
+        return borrowBook(userId, bookId, LocalDate.now().plusDays(LOAN_DAYS));
+    }
+
+    /**
+     * Borrows a book until a given date by marking it as unavailable and logging the transaction.
+     *
+     * @param userId  the ID of the user borrowing the book
+     * @param bookId  the ID of the book to borrow
+     * @param dueDate the date the book is due back
+     * @return true if the book was successfully borrowed, false otherwise
+     */
+    public boolean borrowBook(String userId, LibraryId bookId, LocalDate dueDate) {
+        Book book = getBook(bookId);
         if (book != null && book.isAvailable()) {
-            transactions.add(new Transaction(UUID.randomUUID().toString(), userId, bookId, "borrow"));
-            book.setAvailable(false); // Marks book as borrowed
+            recordTransaction(new Transaction(idGenerator.next(), userId, bookId, "borrow", LocalDateTime.now(), dueDate));
+            setAvailable(book, false); // Marks book as borrowed
+            setBorrower(bookId, userId, dueDate);
             return true;
         }
         return false;
@@ -116,15 +523,205 @@ class Library {
      * @return true if the book was successfully returned, false otherwise
      */
     public boolean returnBook(String userId, String bookId) {
-        Book book = getBookByID(bookId);
+        LibraryId id = LibraryId.of(bookId);
+        return id != null && returnBook(userId, id);
+    }
+
+    /**
+     * Returns a borrowed book by marking it as available and logging the transaction.
+     *
+     * @param userId the ID of the user returning the book
+     * @param bookId the ID of the book to return
+     * @return true if the book was successfully returned, false otherwise
+     */
+    public boolean returnBook(String userId, LibraryId bookId) {
+        Book book = getBook(bookId);
         if (book != null && !book.isAvailable()) {
-            transactions.add(new Transaction(UUID.randomUUID().toString(), userId, bookId, "return"));
-            book.setAvailable(true); // Marks book as available again
+            recordTransaction(new Transaction(idGenerator.next(), userId, bookId, "return"));
+            setAvailable(book, true); // Marks book as available again
+            clearBorrower(bookId);
             return true;
         }
         return false;
     }
 
+    /**
+     * Borrows several books for one user, as a self-checkout kiosk does.
+     * The books are due back {@link #LOAN_DAYS} days from today.
+     *
+     * @param userId  the ID of the user borrowing the books
+     * @param bookIds the IDs of the books to borrow
+     * @return for each book, in order, true if it was borrowed and false if it is unknown, already on loan
+     *         or listed earlier in the batch
+     * @throws UncheckedIOException if the journal cannot record the batch; no book is borrowed then
+     */
+    public boolean[] borrowBooks(String userId, List<LibraryId> bookIds) {
+        return borrowBooks(userId, bookIds, LocalDate.now().plusDays(LOAN_DAYS));
+    }
+
+    /**
+     * Borrows several books for one user until a given date.
+     *
+     * @param userId  the ID of the user borrowing the books
+     * @param bookIds the IDs of the books to borrow
+     * @param dueDate the date the books are due back
+     * @return for each book, in order, true if it was borrowed and false if it is unknown, already on loan
+     *         or listed earlier in the batch
+     * @throws UncheckedIOException if the journal cannot record the batch; no book is borrowed then
+     */
+    public boolean[] borrowBooks(String userId, List<LibraryId> bookIds, LocalDate dueDate) {
+        return circulate(userId, bookIds, true, dueDate);
+    }
+
+    /**
+     * Returns several books for one user, as a book-drop sorter does.
+     *
+     * @param userId  the ID of the user returning the books
+     * @param bookIds the IDs of the books to return
+     * @return for each book, in order, true if it was returned and false if it is unknown, not on loan
+     *         or listed earlier in the batch
+     * @throws UncheckedIOException if the journal cannot record the batch; no book is returned then
+     */
+    public boolean[] returnBooks(String userId, List<LibraryId> bookIds) {
+        return circulate(userId, bookIds, false, null);
+    }
+
+    /**
+     * Borrows or returns a batch of books. Every book is checked first, then the transactions for the
+     * valid ones are journaled together with a single force to disk, and only then applied.
+     *
+     * @param userId  the ID of the user
+     * @param bookIds the IDs of the books
+     * @param borrow  true to borrow the books, false to return them
+     * @param dueDate the date borrowed books are due back; null for returns
+     * @return whether each book was borrowed or returned
+     */
+    private boolean[] circulate(String userId, List<LibraryId> bookIds, boolean borrow, LocalDate dueDate) {
+        boolean[] results = new boolean[bookIds.size()];
+        List<Book> books = new ArrayList<>();
+        List<Transaction> batch = new ArrayList<>();
+        Set<LibraryId> seen = new HashSet<>();
+        String type = borrow ? "borrow" : "return";
+        for (int i = 0; i < results.length; i++) {
+            LibraryId bookId = bookIds.get(i);
+            Book book = getBook(bookId);
+            if (book != null && book.isAvailable() == borrow && seen.add(bookId)) {
+                results[i] = true;
+                books.add(book);
+                batch.add(new Transaction(idGenerator.next(), userId, bookId, type, LocalDateTime.now(), dueDate));
+            }
+        }
+        recordTransactions(batch);
+        for (Book book : books) {
+            setAvailable(book, !borrow);
+            if (borrow) {
+                setBorrower(book.getId(), userId, dueDate);
+            } else {
+                clearBorrower(book.getId());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Logs a batch of transactions, writing them to the journal first if one is attached.
+     *
+     * @param batch the transactions to log, in order
+     * @throws UncheckedIOException if the journal cannot record the transactions
+     */
+    private void recordTransactions(List<Transaction> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (journal != null) {
+            try {
+                lastLsn = journal.appendAll(batch);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not record a batch of " + batch.size() + " transactions", e);
+            }
+        }
+        for (Transaction transaction : batch) {
+            indexTransaction(transaction);
+            transactions.add(transaction);
+        }
+    }
+
+    /**
+     * Logs a transaction, writing it to the journal first if one is attached.
+     *
+     * @param transaction the transaction to log
+     * @throws UncheckedIOException if the journal cannot record the transaction
+     */
+    private void recordTransaction(Transaction transaction) {
+        if (journal != null) {
+            try {
+                lastLsn = journal.append(transaction);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not record transaction " + transaction.getTransactionID(), e);
+            }
+        }
+        indexTransaction(transaction);
+        transactions.add(transaction);
+    }
+
+    /**
+     * Adds a transaction to the per-book and per-user histories.
+     *
+     * @param transaction the transaction, which must be newer than those already indexed
+     */
+    private void indexTransaction(Transaction transaction) {
+        historyByBook.computeIfAbsent(transaction.getBookLibraryId(), id -> new ArrayList<>(2)).add(transaction);
+        historyByUser.computeIfAbsent(transaction.getUserID(), id -> new ArrayList<>()).add(transaction);
+    }
+
+    /**
+     * Records that a user holds a book, in the borrower map, the user's loans and the overdue scheduler.
+     *
+     * @param bookId  the ID of the borrowed book
+     * @param userId  the ID of the user holding it
+     * @param dueDate the date the book is due back
+     */
+    private void setBorrower(LibraryId bookId, String userId, LocalDate dueDate) {
+        clearBorrower(bookId);
+        borrowers.put(bookId, userId);
+        loansByUser.computeIfAbsent(userId, id -> new LinkedHashSet<>()).add(bookId);
+        overdueLoans.schedule(bookId, userId, dueDate);
+    }
+
+    /**
+     * Records that a book is no longer held by anyone.
+     *
+     * @param bookId the ID of the book
+     */
+    private void clearBorrower(LibraryId bookId) {
+        overdueLoans.cancel(bookId);
+        String holder = borrowers.remove(bookId);
+        if (holder != null) {
+            Set<LibraryId> loans = loansByUser.get(holder);
+            loans.remove(bookId);
+            if (loans.isEmpty()) {
+                loansByUser.remove(holder);
+            }
+        }
+    }
+
+    /**
+     * Changes the availability of a book and keeps the availability bitmap, count and facets in step.
+     *
+     * @param book         a book in the catalog
+     * @param availability the new availability status
+     */
+    private void setAvailable(Book book, boolean availability) {
+        book.setAvailable(availability);
+        int ordinal = book.getOrdinal();
+        if (availableBooks.get(ordinal) != availability) {
+            availableBooks.set(ordinal, availability);
+            availableCount += availability ? 1 : -1;
+            genreFacets.availabilityChanged(book.getGenre(), availability);
+            authorFacets.availabilityChanged(book.getAuthor(), availability);
+        }
+    }
+
     /**
      * Updates the details of a book by its ID.
      *
@@ -132,23 +729,95 @@ class Library {
      * @param newDetails a map containing the new details for the book
      */
     public void updateBook(String bookId, Map<String, String> newDetails) {
-        for (Book book : books) {
-            if (book.getBookID().equals(bookId)) {
-                if (newDetails.containsKey("title")) {
-                    book.setTitle(newDetails.get("title"));
-                }
-                if (newDetails.containsKey("author")) {
-                    book.setAuthor(newDetails.get("author"));
-                }
-                if (newDetails.containsKey("genre")) {
-                    book.setGenre(newDetails.get("genre"));
-                }
-                if (newDetails.containsKey("availability")) {
-                    book.setAvailable(Boolean.parseBoolean(newDetails.get("availability")));
-                }
-                return; // Exit after updating the book
+        Book book = getBookByID(bookId);
+        if (book == null) {
+            return; // Nothing to update
+        }
+        applyPatch(book, BookPatch.fromMap(newDetails));
+    }
+
+    /**
+     * Applies the same changes to every book that matches a filter, such as moving a whole genre.
+     * <p>
+     * The catalog is visited once and each matching book is updated in place, along with the title
+     * index, search index, availability bitmap and facets. Matching is decided before a book is
+     * changed, so a patch that changes the filtered field does not affect which books are updated.
+     * </p>
+     *
+     * @param filter selects the books to update, for example a {@link BookFilter}
+     * @param patch  the changes to apply
+     * @return the number of books updated
+     */
+    public int updateBooks(Predicate<Book> filter, BookPatch patch) {
+        if (patch.isEmpty()) {
+            return 0;
+        }
+        int updated = 0;
+        for (int ordinal = 0; ordinal < catalog.ordinalBound(); ordinal++) {
+            Book book = catalog.get(ordinal);
+            if (book != null && filter.test(book)) {
+                applyPatch(book, patch);
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Applies a different set of changes to each of several books.
+     *
+     * @param patches the changes to apply, by book ID; unknown IDs are skipped
+     * @return the number of books updated
+     */
+    public int updateBooks(Map<LibraryId, BookPatch> patches) {
+        int updated = 0;
+        for (Map.Entry<LibraryId, BookPatch> entry : patches.entrySet()) {
+            Book book = getBook(entry.getKey());
+            if (book != null) {
+                applyPatch(book, entry.getValue());
+                updated++;
             }
         }
+        return updated;
+    }
+
+    /**
+     * Changes the fields set in a patch and keeps every index and count in step.
+     * Making a book on loan available ends the loan, as if it had been returned.
+     *
+     * @param book  a book in the catalog
+     * @param patch the changes to apply
+     */
+    private void applyPatch(Book book, BookPatch patch) {
+        boolean reindex = patch.changesSearchedFields();
+        if (reindex) {
+            searchIndex.remove(book.getOrdinal(), book);
+        }
+        if (patch.getTitle() != null) {
+            String oldTitle = book.getTitle();
+            book.setTitle(patch.getTitle());
+            titleIndex.rename(book.getOrdinal(), oldTitle, book.getTitle());
+        }
+        boolean available = availableBooks.get(book.getOrdinal());
+        if (patch.getAuthor() != null) {
+            authorFacets.remove(book.getAuthor(), available);
+            book.setAuthor(stringPool.intern(patch.getAuthor()));
+            authorFacets.add(book.getAuthor(), available);
+        }
+        if (patch.getGenre() != null) {
+            genreFacets.remove(book.getGenre(), available);
+            book.setGenre(stringPool.intern(patch.getGenre()));
+            genreFacets.add(book.getGenre(), available);
+        }
+        if (patch.getAvailability() != null) {
+            setAvailable(book, patch.getAvailability());
+            if (patch.getAvailability()) {
+                clearBorrower(book.getId()); // An available book is on nobody's loan list and cannot fall overdue
+            }
+        }
+        if (reindex) {
+            searchIndex.add(book.getOrdinal(), book);
+        }
     }
 
     /**
@@ -158,21 +827,116 @@ class Library {
      * @return the book with the specified ID, or null if not found
      */
     public Book getBookByID(String bookId) {
-        for (Book book : books) {
-            if (book.getBookID().equals(bookId)) {
-                return book;
-            }
-        }
-        return null;
+        LibraryId id = LibraryId.of(bookId);
+        return id == null ? null : getBook(id);
+    }
+
+    /**
+     * Retrieves a book by its unique ID.
+     *
+     * @param bookId the ID of the book to retrieve
+     * @return the book with the specified ID, or null if not found
+     */
+    public Book getBook(LibraryId bookId) {
+        int ordinal = catalog.find(bookId);
+        return ordinal < 0 ? null : catalog.get(ordinal);
     }
 
     /**
      * Retrieves all books in the library.
+     * <p>
+     * The returned list is a read-only view of the catalog in the order the books were added: it
+     * reflects books added or removed later, and building it costs nothing. Iterating it walks the
+     * catalog directly. Indexed access is constant time until a book is removed; the first indexed
+     * access after a removal rebuilds the table of positions. Copy the list to keep a snapshot.
+     * </p>
      *
      * @return a list of books in the library
      */
     public List<Book> getBooks() {
-        return books;
+        return booksView;
+    }
+
+    /**
+     * Retrieves the books that are available, in the order they were added.
+     * <p>
+     * Only the available books are visited, using a bitmap of availability kept up to date by
+     * borrowing, returning and updating books. Availability changed by calling
+     * {@link Book#setAvailable(boolean)} directly is not seen; use {@link #updateBook(String, Map)}.
+     * </p>
+     *
+     * @return a list of the available books
+     */
+    public List<Book> getAvailableBooks() {
+        List<Book> result = new ArrayList<>(availableCount);
+        for (int ordinal = availableBooks.nextSetBit(0); ordinal >= 0; ordinal = availableBooks.nextSetBit(ordinal + 1)) {
+            result.add(catalog.get(ordinal));
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of books that are available, in constant time.
+     *
+     * @return the number of available books
+     */
+    public int getAvailableCount() {
+        return availableCount;
+    }
+
+    /**
+     * Gets the number of books that are checked out, in constant time.
+     *
+     * @return the number of books that are not available
+     */
+    public int getCheckedOutCount() {
+        return catalog.size() - availableCount;
+    }
+
+    /**
+     * Retrieves the number of books, and of available books, in each genre.
+     * <p>
+     * The counts are kept up to date as the catalog changes, so this takes time proportional to the
+     * number of genres rather than the number of books.
+     * </p>
+     *
+     * @return the genre facets, largest first
+     */
+    public List<FacetCounts.Facet> getGenreFacets() {
+        return genreFacets.toList();
+    }
+
+    /**
+     * Retrieves the number of books, and of available books, by each author.
+     * <p>
+     * The counts are kept up to date as the catalog changes, so this takes time proportional to the
+     * number of authors rather than the number of books.
+     * </p>
+     *
+     * @return the author facets, largest first
+     */
+    public List<FacetCounts.Facet> getAuthorFacets() {
+        return authorFacets.toList();
+    }
+
+    /**
+     * Retrieves the counts for a single genre.
+     *
+     * @param genre the genre to look up
+     * @return the number of books and available books in the genre, or null if there are none
+     */
+    public FacetCounts.Facet getGenreFacet(String genre) {
+        return genreFacets.get(genre);
+    }
+
+    /**
+     * Retrieves the counts for a single author.
+     *
+     * @param author the author to look up
+     * @return the number of books and available books by the author, or null if there are none
+     */
+    public FacetCounts.Facet getAuthorFacet(String author) {
+        return authorFacets.get(author);
     }
 
     /**
@@ -182,11 +946,127 @@ class Library {
      * @return the book with the specified title, or null if not found
      */
     public Book searchBookByTitle(String title) {
-        for (Book book : books) {
-            if (book.getTitle().equalsIgnoreCase(title)) {
-                return book;
+        int[] matches = titleIndex.findExact(title);
+        return matches.length == 0 ? null : catalog.get(matches[0]);
+    }
+
+    /**
+     * Searches for all books with the given title, ignoring case.
+     *
+     * @param title the title of the books to search for
+     * @return the books with the specified title, or an empty list if none are found
+     */
+    public List<Book> searchBooksByTitle(String title) {
+        return toBooks(titleIndex.findExact(title));
+    }
+
+    /**
+     * Searches for all books whose title starts with the given prefix, ignoring case.
+     *
+     * @param prefix the beginning of the title to search for
+     * @return the matching books ordered by title, or an empty list if none are found
+     */
+    public List<Book> searchBooksByTitlePrefix(String prefix) {
+        return toBooks(titleIndex.findByPrefix(prefix));
+    }
+
+    /**
+     * Searches the title, author and genre of every book for the given words.
+     * <p>
+     * Matching ignores case and word order. Results are ranked so that books matching rarer words,
+     * or matching them in the title rather than the author or genre, come first.
+     * </p>
+     *
+     * @param query    the words to search for
+     * @param matchAll true to return only books containing every word, false to return books containing any of them
+     * @return the matching books, best match first, or an empty list if none are found
+     */
+    public List<Book> searchBooks(String query, boolean matchAll) {
+        List<Book> result = new ArrayList<>();
+        for (CatalogSearchIndex.Hit hit : searchIndex.search(query, matchAll)) {
+            result.add(catalog.get(hit.ordinal));
+        }
+        return result;
+    }
+
+    /**
+     * Looks up the books at the given ordinals, in the same order.
+     *
+     * @param ordinals the ordinals of books in the catalog
+     * @return the books
+     */
+    private List<Book> toBooks(int[] ordinals) {
+        List<Book> result = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            result.add(catalog.get(ordinal));
+        }
+        return result;
+    }
+    /**
+     * Read-only list over the live books of the catalog, in ordinal order.
+     */
+    private final class CatalogView extends AbstractList<Book> implements RandomAccess {
+        private int[] positions = new int[0]; // List index -> ordinal, once books have been removed
+        private int positionsBound = -1;
+        private int positionsSize = -1;
+
+        @Override
+        public Book get(int index) {
+            Objects.checkIndex(index, catalog.size());
+            if (catalog.ordinalBound() == catalog.size()) {
+                return catalog.get(index); // Nothing removed: the index is the ordinal
+            }
+            // Ordinals only grow and removals only shrink the size, so the pair identifies the live set
+            if (positionsBound != catalog.ordinalBound() || positionsSize != catalog.size()) {
+                positions = new int[catalog.size()];
+                int next = 0;
+                for (int ordinal = 0; ordinal < catalog.ordinalBound(); ordinal++) {
+                    if (catalog.get(ordinal) != null) {
+                        positions[next++] = ordinal;
+                    }
+                }
+                positionsBound = catalog.ordinalBound();
+                positionsSize = catalog.size();
             }
+            return catalog.get(positions[index]);
+        }
+
+        @Override
+        public int size() {
+            return catalog.size();
+        }
+
+        @Override
+        public Iterator<Book> iterator() {
+            return new Iterator<Book>() {
+                private int ordinal;
+                private Book next = advance();
+
+                private Book advance() {
+                    while (ordinal < catalog.ordinalBound()) {
+                        Book book = catalog.get(ordinal++);
+                        if (book != null) {
+                            return book;
+                        }
+                    }
+                    return null;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public Book next() {
+                    if (next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    Book book = next;
+                    next = advance();
+                    return book;
+                }
+            };
         }
-        return null;
     }
-}
\ No newline at end of file
+}
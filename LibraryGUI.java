@@ -1,14 +1,17 @@
 package com.example;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.sql.*;
-import java.util.Vector;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileReader;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 
 
 /**This class contains a functional GUI that allows the user to navigate through books (provided by a connected database in the system).
@@ -21,7 +24,11 @@ import java.io.FileReader;
 
 
 public class LibraryGUI extends JFrame {
-    private Connection connection;
+    /** Rows per JDBC batch when importing; set with -Dlms.import.batchSize=N. */
+    private static final int IMPORT_BATCH_SIZE =
+            Integer.getInteger("lms.import.batchSize", BookRepository.DEFAULT_BATCH_SIZE);
+
+    private boolean connected;
 
     /**
      * Constructs a LibraryGUI object, initializes the database connection, and sets up the UI.
@@ -33,16 +40,18 @@ public class LibraryGUI extends JFrame {
     }
 
     /**
-     * Establishes a connection to the database.
+     * Checks that the database can be reached by borrowing a connection from the pool.
      * If the connection fails, an error message is shown.
+     * Each action later borrows its own connection and returns it when done.
      */
     private void connectToDatabase() {
         try {
-            connection = DatabaseConnector.getConnection();
+            DatabaseConnector.getConnection().close();
+            connected = true;
             JOptionPane.showMessageDialog(this, "Connected to the database successfully!");
         } catch (SQLException e) {
             JOptionPane.showMessageDialog(this, "Database connection failed: " + e.getMessage());
-            connection = null;
+            connected = false;
         }
     }
 
@@ -56,19 +65,23 @@ public class LibraryGUI extends JFrame {
         setLayout(new BorderLayout());
         setLocationRelativeTo(null);
 
-        JPanel buttonPanel = new JPanel(new GridLayout(7, 1, 10, 10));
+        JPanel buttonPanel = new JPanel(new GridLayout(8, 1, 10, 10));
         JButton importButton = createButton("Import Books from File", e -> importBooksFromFile());
         JButton printButton = createButton("Print Database", e -> printDatabase());
+        JButton availableButton = createButton("Print Available Books", e -> printAvailableBooks());
         JButton removeButton = createButton("Remove Book", e -> removeBook());
         JButton checkoutButton = createButton("Check Out Book", e -> checkOutBook());
         JButton checkinButton = createButton("Check In Book", e -> checkInBook());
+        JButton genreButton = createButton("Rename Genre", e -> renameGenre());
         JButton exitButton = createButton("Exit", e -> System.exit(0));
 
         buttonPanel.add(importButton);
         buttonPanel.add(printButton);
+        buttonPanel.add(availableButton);
         buttonPanel.add(removeButton);
         buttonPanel.add(checkoutButton);
         buttonPanel.add(checkinButton);
+        buttonPanel.add(genreButton);
         buttonPanel.add(exitButton);
 
         add(buttonPanel, BorderLayout.CENTER);
@@ -90,87 +103,70 @@ public class LibraryGUI extends JFrame {
     }
 
     /**
-     * Imports books from a file selected by the user and adds them to the database.
-     * Displays a message when the books are successfully imported or if there is an error.
+     * Imports books from a file selected by the user and adds them to the database in batches.
+     * The import runs in the background and can be cancelled; batches already imported are kept.
+     * Displays the number of books imported and the import rate, or an error message.
      */
     private void importBooksFromFile() {
-        if (connection == null) {
+        if (!connected) {
             JOptionPane.showMessageDialog(this, "No database connection.");
             return;
         }
 
         JFileChooser fileChooser = new JFileChooser();
         if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
-            try (BufferedReader br = new BufferedReader(new FileReader(fileChooser.getSelectedFile()))) {
-                String line;
-                while ((line = br.readLine()) != null) {
-                    String[] bookData = line.split(",");
-                    if (bookData.length == 4) {
-                        String title = bookData[0].trim();
-                        String author = bookData[1].trim();
-                        String genre = bookData[2].trim();
-                        String status = "checked in"; // Default status
-                        String barcode = java.util.UUID.randomUUID().toString(); // Unique barcode
-
-                        String query = "INSERT INTO books (barcode, title, author, genre, status) VALUES (?, ?, ?, ?, ?)";
-                        try (PreparedStatement stmt = connection.prepareStatement(query)) {
-                            stmt.setString(1, barcode);
-                            stmt.setString(2, title);
-                            stmt.setString(3, author);
-                            stmt.setString(4, genre);
-                            stmt.setString(5, status);
-                            stmt.executeUpdate();
-                        }
-                    }
+            File file = fileChooser.getSelectedFile();
+            runInBackground("Import Books", progress -> {
+                try (Connection connection = DatabaseConnector.getConnection();
+                     BufferedReader br = new BufferedReader(new FileReader(file))) {
+                    return new BookRepository(connection).importBooks(br, IMPORT_BATCH_SIZE, progress);
                 }
-                JOptionPane.showMessageDialog(this, "Books imported successfully.");
-            } catch (Exception e) {
-                JOptionPane.showMessageDialog(this, "Error importing books: " + e.getMessage());
-            }
+            }, result -> JOptionPane.showMessageDialog(this, result.toString()), "Error importing books: ");
         }
     }
 
     /**
      * Prints the database contents in a table format, displaying all books in the system.
      * <p>
-     * If there is a problem fetching the data, an error message is shown.
+     * Rows are loaded page by page in the background as the table is scrolled, so large
+     * catalogs open immediately. If there is a problem fetching the data, an error message is shown.
      */
     private void printDatabase() {
-        if (connection == null) {
+        printBooks(null, "Books in Database");
+    }
+
+    /**
+     * Prints only the books that are checked in and can be borrowed.
+     * The database filters the rows, so the table pages through available books only.
+     */
+    private void printAvailableBooks() {
+        printBooks("checked in", "Available Books");
+    }
+
+    /**
+     * Shows the books with the given status in a paged table.
+     *
+     * @param status the status of the books to show, or null for all books
+     * @param title  the title of the dialog
+     */
+    private void printBooks(String status, String title) {
+        if (!connected) {
             JOptionPane.showMessageDialog(this, "No database connection.");
             return;
         }
 
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT * FROM books")) {
-
-            Vector<String> columnNames = new Vector<>();
-            columnNames.add("Barcode");
-            columnNames.add("Title");
-            columnNames.add("Author");
-            columnNames.add("Genre");
-            columnNames.add("Status");
-            columnNames.add("Due Date");
-
-            Vector<Vector<Object>> data = new Vector<>();
-            while (rs.next()) {
-                Vector<Object> row = new Vector<>();
-                row.add(rs.getString("barcode"));
-                row.add(rs.getString("title"));
-                row.add(rs.getString("author"));
-                row.add(rs.getString("genre"));
-                row.add(rs.getString("status"));
-                row.add(rs.getDate("due_date"));
-                data.add(row);
-            }
-
-            JTable table = new JTable(new DefaultTableModel(data, columnNames));
-            adjustColumnWidths(table);
-
-            JOptionPane.showMessageDialog(this, new JScrollPane(table), "Books in Database", JOptionPane.PLAIN_MESSAGE);
+        PagedBookTableModel model = new PagedBookTableModel(PagedBookTableModel.DEFAULT_PAGE_SIZE,
+                PagedBookTableModel.DEFAULT_CACHED_PAGES, status,
+                e -> JOptionPane.showMessageDialog(this, "Error fetching database: " + e.getMessage()));
+        JTable table = new JTable(model);
+        adjustColumnWidths(table);
 
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error fetching database: " + e.getMessage());
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setPreferredSize(new Dimension(750, 400));
+        try {
+            JOptionPane.showMessageDialog(this, scrollPane, title, JOptionPane.PLAIN_MESSAGE);
+        } finally {
+            model.close();
         }
     }
 
@@ -190,74 +186,158 @@ public class LibraryGUI extends JFrame {
     }
 
     /**
-     * Removes a book from the database by its barcode.
-     * Prompts the user for the barcode of the book to remove, and shows an appropriate message.
+     * Removes one or more books from the database by barcode.
+     * Several barcodes can be entered at once, separated by spaces or commas; they are deleted as one batch.
+     * Prompts the user for the barcodes of the books to remove, and shows an appropriate message.
      */
     private void removeBook() {
-        if (connection == null) {
+        if (!connected) {
             JOptionPane.showMessageDialog(this, "No database connection.");
             return;
         }
 
-        String barcode = JOptionPane.showInputDialog(this, "Enter the Barcode of the Book to Remove:");
-        if (barcode != null && !barcode.trim().isEmpty()) {
-            String query = "DELETE FROM books WHERE barcode = ?";
-            try (PreparedStatement stmt = connection.prepareStatement(query)) {
-                stmt.setString(1, barcode);
-                int rowsAffected = stmt.executeUpdate();
-                JOptionPane.showMessageDialog(this, rowsAffected > 0 ? "Book removed successfully." : "Book not found.");
-            } catch (SQLException e) {
-                JOptionPane.showMessageDialog(this, "Error removing book: " + e.getMessage());
-            }
+        String input = JOptionPane.showInputDialog(this, "Enter the Barcode(s) of the Book(s) to Remove:");
+        List<String> barcodes = parseBarcodes(input);
+        if (!barcodes.isEmpty()) {
+            runInBackground("Remove Book", progress -> {
+                try (Connection connection = DatabaseConnector.getConnection()) {
+                    return new BookRepository(connection).removeBooks(barcodes);
+                }
+            }, removed -> JOptionPane.showMessageDialog(this, describeBatch(barcodes, removed,
+                    "removed", "Book not found.")),
+                    "Error removing book: ");
         }
     }
 
     /**
-     * Checks out a book from the library by updating its status to 'checked out' and setting a due date.
-     *
-     * @throws SQLException if there is an error while updating the book's status in the database
+     * Checks out one or more books from the library by updating their status to 'checked out' and setting a due date.
+     * Several barcodes can be entered at once, separated by spaces or commas; they are sent as one batch.
+     * The update runs in the background; errors are shown in a message dialog.
      */
     private void checkOutBook() {
-        if (connection == null) {
+        if (!connected) {
             JOptionPane.showMessageDialog(this, "No database connection.");
             return;
         }
 
-        String barcode = JOptionPane.showInputDialog(this, "Enter the Barcode of the Book to Check Out:");
-        if (barcode != null && !barcode.trim().isEmpty()) {
-            String query = "UPDATE books SET status = 'checked out', due_date = ? WHERE barcode = ? AND status = 'checked in'";
-            try (PreparedStatement stmt = connection.prepareStatement(query)) {
-                stmt.setDate(1, Date.valueOf(java.time.LocalDate.now().plusWeeks(4)));
-                stmt.setString(2, barcode);
-                int rowsAffected = stmt.executeUpdate();
-                JOptionPane.showMessageDialog(this, rowsAffected > 0 ? "Book checked out successfully." : "Book not found or already checked out.");
-            } catch (SQLException e) {
-                JOptionPane.showMessageDialog(this, "Error checking out book: " + e.getMessage());
-            }
+        String input = JOptionPane.showInputDialog(this, "Enter the Barcode(s) of the Book(s) to Check Out:");
+        List<String> barcodes = parseBarcodes(input);
+        if (!barcodes.isEmpty()) {
+            runInBackground("Check Out Book", progress -> {
+                try (Connection connection = DatabaseConnector.getConnection()) {
+                    return new BookRepository(connection).checkOutBooks(barcodes, LocalDate.now().plusWeeks(4));
+                }
+            }, checkedOut -> JOptionPane.showMessageDialog(this, describeBatch(barcodes, checkedOut,
+                    "checked out", "Book not found or already checked out.")),
+                    "Error checking out book: ");
         }
     }
 
     /**
-     * Checks in a book by updating its status to 'checked in' and clearing the due date.
-     *
-     * @throws SQLException if there is an error while updating the book's status in the database
+     * Checks in one or more books by updating their status to 'checked in' and clearing the due date.
+     * Several barcodes can be entered at once, separated by spaces or commas; they are sent as one batch.
+     * The update runs in the background; errors are shown in a message dialog.
      */
     private void checkInBook() {
-        if (connection == null) {
+        if (!connected) {
             JOptionPane.showMessageDialog(this, "No database connection.");
             return;
         }
 
-        String barcode = JOptionPane.showInputDialog(this, "Enter the Barcode of the Book to Check In:");
-        if (barcode != null && !barcode.trim().isEmpty()) {
-            String query = "UPDATE books SET status = 'checked in', due_date = NULL WHERE barcode = ? AND status = 'checked out'";
-            try (PreparedStatement stmt = connection.prepareStatement(query)) {
-                stmt.setString(1, barcode);
-                int rowsAffected = stmt.executeUpdate();
-                JOptionPane.showMessageDialog(this, rowsAffected > 0 ? "Book checked in successfully." : "Book not found or already checked in.");
-            } catch (SQLException e) {
-                JOptionPane.showMessageDialog(this, "Error checking in book: " + e.getMessage());
+        String input = JOptionPane.showInputDialog(this, "Enter the Barcode(s) of the Book(s) to Check In:");
+        List<String> barcodes = parseBarcodes(input);
+        if (!barcodes.isEmpty()) {
+            runInBackground("Check In Book", progress -> {
+                try (Connection connection = DatabaseConnector.getConnection()) {
+                    return new BookRepository(connection).checkInBooks(barcodes);
+                }
+            }, checkedIn -> JOptionPane.showMessageDialog(this, describeBatch(barcodes, checkedIn,
+                    "checked in", "Book not found or already checked in.")),
+                    "Error checking in book: ");
+        }
+    }
+
+    /**
+     * Moves every book of one genre to another, for example when the catalogue is reorganised.
+     * The change is made by a single UPDATE statement in the background.
+     */
+    private void renameGenre() {
+        if (!connected) {
+            JOptionPane.showMessageDialog(this, "No database connection.");
+            return;
+        }
+
+        String oldGenre = JOptionPane.showInputDialog(this, "Enter the Genre to Rename:");
+        if (oldGenre == null || oldGenre.trim().isEmpty()) {
+            return;
+        }
+        String newGenre = JOptionPane.showInputDialog(this, "Enter the New Name for " + oldGenre.trim() + ":");
+        if (newGenre != null && !newGenre.trim().isEmpty()) {
+            runInBackground("Rename Genre", progress -> {
+                try (Connection connection = DatabaseConnector.getConnection()) {
+                    return new BookRepository(connection).updateBooks(new BookFilter().genre(oldGenre.trim()),
+                            new BookPatch().genre(newGenre.trim()));
+                }
+            }, updated -> JOptionPane.showMessageDialog(this, updated + " books moved to " + newGenre.trim() + "."),
+                    "Error renaming genre: ");
+        }
+    }
+
+    /**
+     * Splits the text entered in a barcode dialog into barcodes.
+     *
+     * @param input one or more barcodes separated by spaces or commas, or null if the dialog was cancelled
+     * @return the barcodes, without empty entries left by leading or repeated separators
+     */
+    private static List<String> parseBarcodes(String input) {
+        List<String> barcodes = new ArrayList<>();
+        if (input != null) {
+            for (String barcode : input.split("[\\s,]+")) {
+                if (!barcode.isEmpty()) {
+                    barcodes.add(barcode);
+                }
             }
         }
+        return barcodes;
+    }
+
+    /**
+     * Builds the message shown after a batch of check-outs or check-ins.
+     *
+     * @param barcodes the barcodes entered
+     * @param results  whether each book was processed
+     * @param action   the action taken, such as "checked out"
+     * @param notFound the message shown when a single book could not be processed
+     * @return the message, listing the barcodes that failed
+     */
+    private static String describeBatch(List<String> barcodes, boolean[] results, String action, String notFound) {
+        if (barcodes.size() == 1) {
+            return results[0] ? "Book " + action + " successfully." : notFound;
+        }
+        StringBuilder failed = new StringBuilder();
+        int succeeded = 0;
+        for (int i = 0; i < results.length; i++) {
+            if (results[i]) {
+                succeeded++;
+            } else {
+                failed.append(failed.length() == 0 ? "" : ", ").append(barcodes.get(i));
+            }
+        }
+        String message = succeeded + " of " + barcodes.size() + " books " + action + ".";
+        return failed.length() == 0 ? message : message + "\nNot found or not " + action + ": " + failed;
+    }
+
+    /**
+     * Runs database work off the Event Dispatch Thread so the window stays responsive.
+     * Slow tasks show a progress dialog with a Cancel button.
+     *
+     * @param title       the name of the action, used as the progress dialog title
+     * @param work        the work to run in the background
+     * @param onSuccess   called on the Event Dispatch Thread with the result
+     * @param errorPrefix the text shown before the error message if the work fails
+     * @param <T>         the type of result produced by the work
+     */
+    private <T> void runInBackground(String title, BackgroundTask.Work<T> work, Consumer<T> onSuccess, String errorPrefix) {
+        new BackgroundTask<>(this, title, work, onSuccess, errorPrefix).start();
     }
 }
@@ -0,0 +1,183 @@
+package com.example;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Compact identifier for books and transactions in the Library Management System (LMS).
+ * <p>
+ * Holds the 128 bits of a UUID in two <code>long</code> fields instead of a 36-character string. An ID
+ * takes 32 bytes on the heap rather than about 80 for the string form, and comparing or hashing it
+ * touches two numbers instead of 36 characters. The string form is only produced at the edges of the
+ * system: the command line, the GUI, the database and the snapshot files.
+ * </p>
+ * <p>
+ * Books and transactions created before IDs became UUIDs may still carry free-form IDs such as
+ * <code>B42</code>. {@link #of(String)} accepts those too and maps each one to a fixed name-based ID,
+ * so a legacy ID keeps finding the same book. The book then reports the UUID form from
+ * {@link Book#getBookID()}.
+ * </p>
+ */
+public final class LibraryId implements Comparable<LibraryId> {
+    private final long mostSignificantBits;
+    private final long leastSignificantBits;
+
+    /**
+     * Constructs an ID from its two halves.
+     *
+     * @param mostSignificantBits  the high 64 bits
+     * @param leastSignificantBits the low 64 bits
+     */
+    public LibraryId(long mostSignificantBits, long leastSignificantBits) {
+        this.mostSignificantBits = mostSignificantBits;
+        this.leastSignificantBits = leastSignificantBits;
+    }
+
+    /**
+     * Creates a random (version 4) ID.
+     *
+     * @return a new random ID
+     */
+    public static LibraryId random() {
+        UUID uuid = UUID.randomUUID();
+        return new LibraryId(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * Converts any ID string to an ID: the standard 36-character form is parsed, and any other string,
+     * such as a legacy free-form ID, is mapped to a name-based (version 3) ID derived from its text.
+     * The same string always gives the same ID.
+     *
+     * @param value the ID string (may be null)
+     * @return the ID, or null if the value is null
+     */
+    public static LibraryId of(String value) {
+        LibraryId id = tryParse(value);
+        if (id != null || value == null) {
+            return id;
+        }
+        UUID uuid = UUID.nameUUIDFromBytes(("lms-legacy-id:" + value).getBytes(StandardCharsets.UTF_8));
+        return new LibraryId(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * Parses the standard 36-character form, such as <code>123e4567-e89b-12d3-a456-426614174000</code>.
+     *
+     * @param value the text to parse
+     * @return the ID
+     * @throws IllegalArgumentException if the text is not a valid ID
+     */
+    public static LibraryId parse(String value) {
+        LibraryId id = tryParse(value);
+        if (id == null) {
+            throw new IllegalArgumentException("Invalid ID: " + value);
+        }
+        return id;
+    }
+
+    /**
+     * Parses the standard 36-character form, returning null instead of failing.
+     *
+     * @param value the text to parse (may be null)
+     * @return the ID, or null if the text is not a valid ID
+     */
+    public static LibraryId tryParse(String value) {
+        if (value == null || value.length() != 36
+                || value.charAt(8) != '-' || value.charAt(13) != '-'
+                || value.charAt(18) != '-' || value.charAt(23) != '-') {
+            return null;
+        }
+        long msb = 0;
+        long lsb = 0;
+        int digits = 0;
+        for (int i = 0; i < 36; i++) {
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                continue;
+            }
+            int digit = hexDigit(value.charAt(i));
+            if (digit < 0) {
+                return null;
+            }
+            if (digits++ < 16) {
+                msb = (msb << 4) | digit;
+            } else {
+                lsb = (lsb << 4) | digit;
+            }
+        }
+        return new LibraryId(msb, lsb);
+    }
+
+    /**
+     * Gets the value of an ASCII hexadecimal digit. Unlike {@link Character#digit(char, int)}, other
+     * scripts' digits (fullwidth, Arabic-Indic and so on) are rejected.
+     *
+     * @return the value 0-15, or -1 if the character is not in <code>[0-9a-fA-F]</code>
+     */
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the high 64 bits of the ID.
+     *
+     * @return the most significant bits
+     */
+    public long getMostSignificantBits() {
+        return mostSignificantBits;
+    }
+
+    /**
+     * Gets the low 64 bits of the ID.
+     *
+     * @return the least significant bits
+     */
+    public long getLeastSignificantBits() {
+        return leastSignificantBits;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LibraryId)) {
+            return false;
+        }
+        LibraryId other = (LibraryId) o;
+        return mostSignificantBits == other.mostSignificantBits && leastSignificantBits == other.leastSignificantBits;
+    }
+
+    @Override
+    public int hashCode() {
+        long hash = mostSignificantBits ^ leastSignificantBits;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Orders IDs by their unsigned 128-bit value, which matches the order of their string forms.
+     */
+    @Override
+    public int compareTo(LibraryId other) {
+        int result = Long.compareUnsigned(mostSignificantBits, other.mostSignificantBits);
+        return result != 0 ? result : Long.compareUnsigned(leastSignificantBits, other.leastSignificantBits);
+    }
+
+    /**
+     * Formats the ID in the standard 36-character form.
+     *
+     * @return the lower-case hexadecimal form with dashes
+     */
+    @Override
+    public String toString() {
+        return new UUID(mostSignificantBits, leastSignificantBits).toString();
+    }
+}
@@ -0,0 +1,162 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Rebuilds the state of a {@link Library} after a restart by replaying its transaction journal.
+ * <p>
+ * The library must already contain the catalog the journal refers to. Recovery runs in three steps:
+ * <ol>
+ *     <li>The journal records are checksummed and decoded on the pool, each segment split into
+ *     slices of consecutive records (see {@link TransactionJournal#readParallel}).</li>
+ *     <li>The decoded records are split into partitions by book ID, and each partition is reduced on
+ *     its own fork-join task to the last transaction of every book in it, which decides whether the
+ *     book is on loan.</li>
+ *     <li>Those last transactions are applied to the library, and the replayed transactions are
+ *     added to its history in LSN order. This step runs on the calling thread, since the library is
+ *     not thread-safe; it does one update per book rather than one per record.</li>
+ * </ol>
+ * </p>
+ */
+class LibraryRecovery {
+    private final ForkJoinPool pool;
+    private final int partitions;
+
+    /**
+     * Constructs a recovery that runs on the common pool with one partition per processor.
+     */
+    LibraryRecovery() {
+        this(ForkJoinPool.commonPool(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a recovery with an explicit pool and number of partitions.
+     *
+     * @param pool       the pool that decodes the journal and replays the partitions
+     * @param partitions the number of slices and book partitions processed in parallel
+     */
+    LibraryRecovery(ForkJoinPool pool, int partitions) {
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("Partitions must be positive: " + partitions);
+        }
+        this.pool = pool;
+        this.partitions = partitions;
+    }
+
+    /**
+     * Replays the journal records after the given LSN into the library.
+     *
+     * @param library    the library to restore; it must hold the books the journal refers to
+     * @param journalDir the directory holding the journal segments
+     * @param afterLsn   the LSN already reflected in the library (0 to replay the whole journal)
+     * @return what was replayed and how long it took
+     * @throws IOException if the journal cannot be read
+     */
+    RecoveryReport recover(Library library, Path journalDir, long afterLsn) throws IOException {
+        long start = System.nanoTime();
+
+        TransactionJournal.DecodedRecords records = TransactionJournal.readParallel(journalDir, afterLsn, pool, partitions);
+        List<Transaction> history = records.getTransactions();
+        long lastLsn = records.getLastLsn();
+        long readNanos = System.nanoTime() - start;
+
+        List<List<Transaction>> partitioned = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            partitioned.add(new ArrayList<>());
+        }
+        for (Transaction transaction : history) {
+            partitioned.get(Math.floorMod(transaction.getBookLibraryId().hashCode(), partitions)).add(transaction);
+        }
+
+        // Each partition owns a disjoint set of books, so the partitions can be replayed independently
+        List<ForkJoinTask<Map<LibraryId, Transaction>>> tasks = new ArrayList<>(partitions);
+        for (List<Transaction> partition : partitioned) {
+            tasks.add(pool.submit(() -> lastTransactionByBook(partition)));
+        }
+
+        int booksRestored = 0;
+        int orphanRecords = 0;
+        for (ForkJoinTask<Map<LibraryId, Transaction>> task : tasks) {
+            for (Transaction last : task.join().values()) {
+                if (library.restoreLoanState(last)) {
+                    booksRestored++;
+                } else {
+                    orphanRecords++;
+                }
+            }
+        }
+        library.restoreHistory(history, lastLsn);
+
+        return new RecoveryReport(history.size(), booksRestored, orphanRecords, lastLsn,
+                readNanos, System.nanoTime() - start);
+    }
+
+    private static Map<LibraryId, Transaction> lastTransactionByBook(List<Transaction> partition) {
+        Map<LibraryId, Transaction> last = new HashMap<>();
+        for (Transaction transaction : partition) {
+            last.put(transaction.getBookLibraryId(), transaction); // Records arrive in LSN order
+        }
+        return last;
+    }
+
+    /**
+     * Summary of a recovery: how much was replayed and how long it took.
+     */
+    static final class RecoveryReport {
+        private final long recordsReplayed;
+        private final int booksRestored;
+        private final int orphanBooks;
+        private final long lastLsn;
+        private final long readNanos;
+        private final long totalNanos;
+
+        RecoveryReport(long recordsReplayed, int booksRestored, int orphanBooks, long lastLsn,
+                       long readNanos, long totalNanos) {
+            this.recordsReplayed = recordsReplayed;
+            this.booksRestored = booksRestored;
+            this.orphanBooks = orphanBooks;
+            this.lastLsn = lastLsn;
+            this.readNanos = readNanos;
+            this.totalNanos = totalNanos;
+        }
+
+        /** @return the number of journal records replayed */
+        long getRecordsReplayed() {
+            return recordsReplayed;
+        }
+
+        /** @return the number of books whose loan state was restored */
+        int getBooksRestored() {
+            return booksRestored;
+        }
+
+        /** @return the number of books in the journal that are no longer in the catalog */
+        int getOrphanBooks() {
+            return orphanBooks;
+        }
+
+        /** @return the LSN of the last record replayed */
+        long getLastLsn() {
+            return lastLsn;
+        }
+
+        /** @return the total recovery time in milliseconds */
+        long getElapsedMillis() {
+            return totalNanos / 1_000_000;
+        }
+
+        @Override
+        public String toString() {
+            return "Recovered " + recordsReplayed + " transactions up to LSN " + lastLsn + " for " + booksRestored
+                    + " books (" + orphanBooks + " unknown) in " + getElapsedMillis() + " ms ("
+                    + readNanos / 1_000_000 + " ms reading the journal)";
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.example;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Compact binary snapshot of a {@link Library} catalog for the Library Management System (LMS).
+ * <p>
+ * A snapshot holds every book with its stable ID, its availability, the user holding it and its due
+ * date if it is on loan, and the journal LSN it reflects. On startup the snapshot is loaded and only the journal records
+ * after that LSN need to be replayed (see {@link LibraryRecovery}).
+ * </p>
+ * <p>
+ * Taking a snapshot is split in two. The constructor walks the catalog store once and copies the field
+ * references of every book into plain arrays; since strings are immutable this is a single
+ * allocation-light pass, and it is the only part that must run on the thread that owns the library. Encoding and writing the file can then run
+ * in the background while borrowing continues. The file is written under a temporary name and moved
+ * into place, so a crash never leaves a half-written snapshot.
+ * </p>
+ * <p>
+ * Layout: <code>int</code> magic, <code>short</code> version, <code>long</code> LSN, <code>int</code> book
+ * count, then per book the ID as two <code>long</code> values, the title, author, genre and borrower as
+ * length-prefixed UTF-8, the due date as a <code>long</code> epoch day if there is a borrower, and one
+ * availability byte.
+ * </p>
+ */
+class LibrarySnapshot {
+    private static final int MAGIC = 0x4C4D5353; // "LMSS"
+    private static final short VERSION = 3;
+
+    private final long lsn;
+    private final LibraryId[] ids;
+    private final String[] titles;
+    private final String[] authors;
+    private final String[] genres;
+    private final String[] borrowers;
+    private final long[] dueDays;
+    private final boolean[] available;
+
+    /**
+     * Captures the current state of a library. Must be called on the thread that owns the library.
+     *
+     * @param library the library to capture
+     */
+    LibrarySnapshot(Library library) {
+        // One pass over the catalog store through the library's view; the book list itself is never copied
+        List<Book> books = library.getBooks();
+        int count = books.size();
+        this.lsn = library.getLastLsn();
+        this.ids = new LibraryId[count];
+        this.titles = new String[count];
+        this.authors = new String[count];
+        this.genres = new String[count];
+        this.borrowers = new String[count];
+        this.dueDays = new long[count];
+        this.available = new boolean[count];
+        int i = 0;
+        for (Book book : books) {
+            ids[i] = book.getId();
+            titles[i] = book.getTitle();
+            authors[i] = book.getAuthor();
+            genres[i] = book.getGenre();
+            available[i] = book.isAvailable();
+            borrowers[i] = available[i] ? null : library.getBorrower(ids[i]);
+            if (borrowers[i] != null) {
+                dueDays[i] = library.getDueDate(ids[i]).toEpochDay();
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Gets the journal LSN the snapshot reflects.
+     *
+     * @return the LSN of the last transaction included in the snapshot
+     */
+    long getLsn() {
+        return lsn;
+    }
+
+    /**
+     * Writes the snapshot to a file on the given executor.
+     *
+     * @param file     the snapshot file to write
+     * @param executor runs the write
+     * @return a future completed with the file once it is on disk
+     */
+    CompletableFuture<Path> writeInBackground(Path file, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                writeTo(file);
+                return file;
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Writes the snapshot to a file, replacing any previous snapshot only once the new one is complete.
+     *
+     * @param file the snapshot file to write
+     * @throws IOException if the file cannot be written
+     */
+    void writeTo(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream channelOut = Channels.newOutputStream(channel);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(channelOut, 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(lsn);
+            out.writeInt(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                out.writeLong(ids[i].getMostSignificantBits());
+                out.writeLong(ids[i].getLeastSignificantBits());
+                writeString(out, titles[i]);
+                writeString(out, authors[i]);
+                writeString(out, genres[i]);
+                writeString(out, borrowers[i]);
+                if (borrowers[i] != null) {
+                    out.writeLong(dueDays[i]);
+                }
+                out.writeByte(available[i] ? 1 : 0);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads a snapshot into a new library by memory-mapping the file.
+     *
+     * @param file the snapshot file to read
+     * @return a library holding the snapshot's books and loans, positioned at the snapshot's LSN
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    static Library load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 18 || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a library snapshot: " + file);
+            }
+            short version = buffer.getShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + file);
+            }
+            long lsn = buffer.getLong();
+            int count = buffer.getInt();
+
+            Library library = new Library(false);
+            StringPool stringPool = library.getStringPool();
+            List<Book> books = new ArrayList<>(count);
+            List<Book> loaned = new ArrayList<>();
+            List<String> holders = new ArrayList<>();
+            List<LocalDate> dueDates = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                LibraryId id = new LibraryId(buffer.getLong(), buffer.getLong());
+                String title = readString(buffer);
+                String author = stringPool.intern(readString(buffer));
+                String genre = stringPool.intern(readString(buffer));
+                String borrower = readString(buffer);
+                LocalDate dueDate = borrower == null ? null : LocalDate.ofEpochDay(buffer.getLong());
+                boolean isAvailable = buffer.get() != 0;
+                Book book = new Book(id, title, author, genre, isAvailable);
+                books.add(book);
+                if (borrower != null) {
+                    loaned.add(book);
+                    holders.add(borrower);
+                    dueDates.add(dueDate);
+                }
+            }
+            library.addBooks(books);
+            for (int i = 0; i < loaned.size(); i++) {
+                library.restoreBorrower(loaned.get(i).getId(), holders.get(i), dueDates.get(i));
+            }
+            library.restoreHistory(Collections.emptyList(), lsn);
+            return library;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated library snapshot: " + file, e);
+        }
+    }
+
+    /**
+     * Writes a string as an unsigned 16-bit byte length followed by its UTF-8 bytes; null is written as 0xFFFF.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeShort(0xFFFF);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= 0xFFFF) {
+            throw new IOException("Value too long for snapshot: " + bytes.length + " bytes");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        if (length == 0xFFFF) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -2,18 +2,39 @@ package com.example;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 
 import com.example.Book;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
 
 class LibraryTest {
 
     private Library library;
 
+    @TempDir
+    Path tempDir;
+
     @BeforeEach
     public void setUp() {
         library = new Library(); // Initializes a new library before each test
@@ -43,6 +64,44 @@ class LibraryTest {
         assertNull(library.getBookByID(bookId));
     }
 
+    @Test
+    public void testBookIdRoundTrip() {
+        Book book = library.getBooks().get(0);
+        String bookId = book.getBookID();
+        assertEquals(book.getId(), LibraryId.parse(bookId));
+        assertEquals(bookId, LibraryId.parse(bookId.toUpperCase()).toString());
+        assertEquals(book, library.getBook(book.getId()));
+        assertNull(library.getBookByID("not-an-id"));
+        assertFalse(library.borrowBook("user1", "not-an-id"));
+        assertNull(LibraryId.tryParse("\uFF11" + bookId.substring(1))); // Fullwidth digit one
+    }
+
+    @Test
+    public void testLegacyBookIdsStillWork() {
+        Library legacy = new Library(false);
+        legacy.addBooks(List.of(new Book("B42", "Emma", "Jane Austen", "Fiction", true)));
+        assertEquals("Emma", legacy.getBookByID("B42").getTitle());
+        assertEquals(LibraryId.of("B42"), new Transaction("T1", "user1", "B42", "borrow").getBookLibraryId());
+        assertTrue(legacy.borrowBook("user1", "B42"));
+        assertTrue(legacy.returnBook("user1", "B42"));
+    }
+
+    @Test
+    public void testTimeOrderedIdsIncrease() {
+        long[] now = {1_700_000_000_000L};
+        IdGenerator generator = new TimeOrderedIdGenerator(() -> now[0]);
+        LibraryId previous = generator.next();
+        for (int i = 0; i < 10_000; i++) { // Exhausts the sequence of a frozen millisecond
+            LibraryId id = generator.next();
+            assertTrue(id.compareTo(previous) > 0);
+            assertTrue(id.toString().compareTo(previous.toString()) > 0);
+            previous = id;
+        }
+        now[0] -= 5_000; // Clock steps backwards
+        assertTrue(generator.next().compareTo(previous) > 0);
+        assertEquals(7, UUID.fromString(previous.toString()).version());
+    }
+
     @Test
     public void testBorrowBook_Success() {
         Book book = library.getBooks().get(0); // Get the first book
@@ -115,5 +174,675 @@ class LibraryTest {
     public void testGetBooks() {
         List<Book> books = library.getBooks();
         assertEquals(3, books.size()); // Initially, there are 3 books
+        assertThrows(UnsupportedOperationException.class, () -> books.remove(0));
+        library.addBook("Fourth Book", "Author", "Genre", true);
+        assertEquals("Fourth Book", books.get(3).getTitle()); // A view, not a copy
+    }
+
+    @Test
+    public void testGetBooks_PreservesInsertionOrderAfterDelete() {
+        library.addBook("Fourth Book", "Author", "Genre", true);
+        String secondId = library.getBooks().get(1).getBookID();
+        library.deleteBookByID(secondId);
+
+        List<Book> books = library.getBooks();
+        assertEquals(3, books.size());
+        assertEquals("The Great Gatsby", books.get(0).getTitle());
+        assertEquals("Moby Dick", books.get(1).getTitle());
+        assertEquals("Fourth Book", books.get(2).getTitle());
+    }
+
+    @Test
+    public void testSearchBooksByTitlePrefix() {
+        library.addBook("The Hobbit", "J.R.R. Tolkien", "Adventure", true);
+        library.addBook("the hobbit", "Another Author", "Adventure", true);
+
+        assertEquals(2, library.searchBooksByTitle("THE HOBBIT").size());
+        List<Book> matches = library.searchBooksByTitlePrefix("the ");
+        assertEquals(3, matches.size());
+        assertEquals("The Great Gatsby", matches.get(0).getTitle());
+
+        library.addBook("Theater of Cruelty", "Antonin Artaud", "Drama", true);
+        assertEquals(3, library.searchBooksByTitlePrefix("the ").size());
+        assertEquals(4, library.searchBooksByTitlePrefix("the").size());
+        assertNull(library.searchBookByTitle(" the hobbit "));
+    }
+
+    @Test
+    public void testSearchBookByTitle_AfterTitleUpdate() {
+        Book book = library.searchBookByTitle("Moby Dick");
+        Map<String, String> updates = new HashMap<>();
+        updates.put("title", "Moby-Dick; or, The Whale");
+        library.updateBook(book.getBookID(), updates);
+
+        assertNull(library.searchBookByTitle("Moby Dick"));
+        assertEquals(book, library.searchBookByTitle("moby-dick; or, the whale"));
+        assertEquals(1, library.searchBooksByTitlePrefix("moby").size());
+    }
+
+    @Test
+    public void testSearchBooks_AndOrQueries() {
+        library.addBook("Animal Farm", "George Orwell", "Satire", true);
+        library.addBook("Homage to Catalonia", "George Orwell", "Memoir", true);
+
+        assertEquals(3, library.searchBooks("orwell", true).size());
+        List<Book> satire = library.searchBooks("Orwell satire", true);
+        assertEquals(1, satire.size());
+        assertEquals("Animal Farm", satire.get(0).getTitle());
+
+        List<Book> either = library.searchBooks("gatsby memoir", false);
+        assertEquals(2, either.size());
+        assertTrue(library.searchBooks("orwell whale", true).isEmpty());
+    }
+
+    @Test
+    public void testSearchBooks_ReflectsUpdatesAndDeletes() {
+        Book book = library.searchBookByTitle("1984");
+        Map<String, String> updates = new HashMap<>();
+        updates.put("genre", "Science Fiction");
+        library.updateBook(book.getBookID(), updates);
+
+        assertTrue(library.searchBooks("dystopian", false).isEmpty());
+        assertEquals(book, library.searchBooks("science fiction", true).get(0));
+
+        library.deleteBookByID(book.getBookID());
+        assertTrue(library.searchBooks("orwell", false).isEmpty());
+    }
+
+    @Test
+    public void testLoadBooksInBulk_ReportsInvalidRows() throws IOException {
+        StringBuilder catalog = new StringBuilder();
+        for (int i = 1; i <= 500; i++) {
+            catalog.append(i == 250 ? "not a valid row" : "Title " + i + ", Author " + i + ", Genre, true").append('\n');
+        }
+        Path file = tempDir.resolve("catalog.csv");
+        Files.writeString(file, catalog);
+
+        BulkLoadReport report = new BulkBookLoader(ForkJoinPool.commonPool(), 1024).load(library, file);
+
+        assertEquals(500, report.getLinesRead());
+        assertEquals(499, report.getBooksLoaded());
+        assertEquals(1, report.getErrorCount());
+        assertEquals("line 250: not a valid row", report.getErrorSamples().get(0));
+        assertEquals(502, library.getBooks().size());
+        assertEquals("Title 1", library.getBooks().get(3).getTitle());
+        assertEquals("Title 500", library.getBooks().get(501).getTitle());
+    }
+
+    @Test
+    public void testLoadBooksInBulk_LineLongerThanMapWindow() throws IOException {
+        String longTitle = "T".repeat(3 * BulkBookLoader.LINE_WINDOW);
+        Path file = tempDir.resolve("catalog.csv");
+        Files.writeString(file, "First, Author, Genre, true\n" + longTitle + ", Author, Genre, true\nLast, Author, Genre, true");
+
+        BulkLoadReport report = new BulkBookLoader(ForkJoinPool.commonPool(), 1024).load(library, file);
+
+        assertEquals(3, report.getBooksLoaded());
+        assertEquals(longTitle, library.getBooks().get(4).getTitle());
+        assertEquals("Last", library.getBooks().get(5).getTitle());
+    }
+
+    @Test
+    public void testBorrowAndReturn_AreJournaled() throws IOException {
+        Book book = library.getBooks().get(0);
+        try (TransactionJournal journal = new TransactionJournal(tempDir.resolve("journal"), 256)) {
+            library.attachJournal(journal);
+            for (int i = 0; i < 5; i++) {
+                library.borrowBook("user1", book.getBookID());
+                library.returnBook("user1", book.getBookID());
+            }
+            assertEquals(10, library.getLastLsn());
+        }
+
+        List<Transaction> replayed = new ArrayList<>();
+        long last = TransactionJournal.replay(tempDir.resolve("journal"), 4, (lsn, transaction) -> replayed.add(transaction));
+        assertEquals(10, last);
+        assertEquals(6, replayed.size());
+        assertEquals("borrow", replayed.get(0).getTransactionType());
+        assertEquals(book.getBookID(), replayed.get(5).getBookID());
+        assertTrue(Files.list(tempDir.resolve("journal")).count() > 1); // Small segments force rolling
+    }
+
+    @Test
+    public void testRecoverLoanStateFromJournal() throws IOException {
+        List<Book> books = library.getBooks();
+        Path journalDir = tempDir.resolve("journal");
+        try (TransactionJournal journal = new TransactionJournal(journalDir, TransactionJournal.DEFAULT_SEGMENT_BYTES)) {
+            library.attachJournal(journal);
+            library.borrowBook("user1", books.get(0).getBookID());
+            library.borrowBook("user2", books.get(1).getBookID());
+            library.returnBook("user2", books.get(1).getBookID());
+            library.borrowBook("user3", books.get(2).getBookID());
+            library.deleteBookByID(books.get(2).getBookID());
+        }
+
+        // Simulate a restart: same catalog, every book available again
+        Library restarted = new Library(false);
+        List<Book> catalog = new ArrayList<>();
+        for (Book book : books) {
+            catalog.add(new Book(book.getBookID(), book.getTitle(), book.getAuthor(), book.getGenre(), true));
+        }
+        restarted.addBooks(catalog.subList(0, 2));
+
+        LibraryRecovery.RecoveryReport report = new LibraryRecovery(ForkJoinPool.commonPool(), 4)
+                .recover(restarted, journalDir, 0);
+
+        assertEquals(4, report.getRecordsReplayed());
+        assertEquals(2, report.getBooksRestored());
+        assertEquals(1, report.getOrphanBooks());
+        assertEquals(4, restarted.getLastLsn());
+        assertFalse(restarted.getBookByID(books.get(0).getBookID()).isAvailable());
+        assertTrue(restarted.getBookByID(books.get(1).getBookID()).isAvailable());
+    }
+
+    @Test
+    public void testParallelJournalReadMatchesReplay() throws IOException {
+        Path journalDir = tempDir.resolve("journal");
+        LibraryId bookId = LibraryId.random();
+        try (TransactionJournal journal = new TransactionJournal(journalDir, 1024)) {
+            for (int i = 0; i < 40; i++) {
+                journal.append(new Transaction(LibraryId.random(), "user1", bookId, "return"));
+            }
+        }
+        // Corrupt a record in the middle of the second segment; the rest of that segment is dropped
+        List<Path> segments = new ArrayList<>();
+        Files.list(journalDir).sorted().forEach(segments::add);
+        try (FileChannel channel = FileChannel.open(segments.get(1), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {(byte) 0xFF}), 5 * 68 + 20);
+        }
+
+        List<Transaction> sequential = new ArrayList<>();
+        long last = TransactionJournal.replay(journalDir, 3, (lsn, transaction) -> sequential.add(transaction));
+        TransactionJournal.DecodedRecords parallel = TransactionJournal.readParallel(journalDir, 3,
+                ForkJoinPool.commonPool(), 4);
+
+        assertEquals(last, parallel.getLastLsn());
+        assertEquals(sequential.size(), parallel.getTransactions().size());
+        assertTrue(sequential.size() < 37);
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.get(i).getId(), parallel.getTransactions().get(i).getId());
+        }
+    }
+
+    @Test
+    public void testSnapshotPlusJournalTail() throws Exception {
+        List<Book> books = library.getBooks();
+        Path journalDir = tempDir.resolve("journal");
+        Path snapshotFile = tempDir.resolve("library.snapshot");
+        try (TransactionJournal journal = new TransactionJournal(journalDir, TransactionJournal.DEFAULT_SEGMENT_BYTES)) {
+            library.attachJournal(journal);
+            library.borrowBook("user1", books.get(0).getBookID());
+            new LibrarySnapshot(library).writeInBackground(snapshotFile, ForkJoinPool.commonPool()).get();
+            library.borrowBook("user2", books.get(1).getBookID()); // Only in the journal tail
+        }
+
+        Library restored = LibrarySnapshot.load(snapshotFile);
+        assertEquals(1, restored.getLastLsn());
+        assertEquals(3, restored.getBooks().size());
+        assertEquals(books.get(0).getBookID(), restored.getBooks().get(0).getBookID());
+        assertEquals("user1", restored.getBorrower(books.get(0).getId()));
+        assertEquals(library.getDueDate(books.get(0).getId()), restored.getDueDate(books.get(0).getId()));
+        assertTrue(restored.getBookByID(books.get(1).getBookID()).isAvailable());
+
+        LibraryRecovery.RecoveryReport report = new LibraryRecovery().recover(restored, journalDir, restored.getLastLsn());
+        assertEquals(1, report.getRecordsReplayed());
+        assertFalse(restored.getBookByID(books.get(1).getBookID()).isAvailable());
+        assertEquals("user2", restored.getBorrower(books.get(1).getId()));
+        assertEquals("Moby Dick", restored.searchBookByTitle("moby dick").getTitle());
+    }
+
+    @Test
+    public void testColumnarCatalogStore() {
+        Library columnar = new Library(true, IdGenerator.timeOrdered(), new ColumnarCatalogStore());
+        columnar.addBook("Emma", "Jane Austen", "Fiction", true);
+        columnar.addBook("Persuasion", "Jane Austen", "Fiction", true);
+        assertEquals(5, columnar.getBooks().size());
+
+        Book emma = columnar.searchBookByTitle("emma");
+        assertEquals("Jane Austen", emma.getAuthor());
+        assertEquals(emma, columnar.getBookByID(emma.getBookID()));
+        assertTrue(columnar.borrowBook("user1", emma.getBookID()));
+        assertFalse(columnar.getBookByID(emma.getBookID()).isAvailable());
+
+        Map<String, String> updates = new HashMap<>();
+        updates.put("title", "Emma (Annotated)");
+        updates.put("genre", "Classic");
+        columnar.updateBook(emma.getBookID(), updates);
+        assertEquals("Classic", emma.getGenre());
+        assertEquals(emma, columnar.searchBooksByTitlePrefix("emma (").get(0));
+        assertEquals(2, columnar.searchBooks("austen", true).size());
+
+        columnar.deleteBook("Persuasion");
+        assertEquals(4, columnar.getBooks().size());
+        assertNull(columnar.searchBookByTitle("Persuasion"));
+        assertEquals(1, columnar.searchBooks("austen", true).size());
+        assertEquals("Moby Dick", columnar.getBooks().get(2).getTitle());
+    }
+
+    @Test
+    public void testColumnarIdTableUnderChurn() {
+        ColumnarCatalogStore store = new ColumnarCatalogStore();
+        int initialLength = store.idTableLength();
+        int previous = -1;
+        Book last = null;
+        for (int i = 0; i < 10_000; i++) {
+            last = new Book(LibraryId.random().toString(), "Title " + i, "Author", "Genre", true);
+            int ordinal = store.add(last);
+            if (previous >= 0) {
+                store.remove(previous);
+            }
+            previous = ordinal;
+        }
+        assertEquals(1, store.size());
+        assertEquals(initialLength, store.idTableLength()); // Tombstones are cleared, not doubled over
+        assertEquals(previous, store.find(last.getId()));
+
+        assertEquals(2, ColumnarCatalogStore.tableLength(0));
+        assertEquals(32, ColumnarCatalogStore.tableLength(16));
+        assertEquals(64, ColumnarCatalogStore.tableLength(17));
+        assertEquals(1 << 30, ColumnarCatalogStore.tableLength(1 << 29));
+        assertEquals(1 << 30, ColumnarCatalogStore.tableLength(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testAvailabilityCounts() {
+        List<Book> books = new ArrayList<>(library.getBooks()); // Snapshot: books are deleted below
+        assertEquals(3, library.getAvailableCount());
+        library.borrowBook("user1", books.get(0).getBookID());
+        library.addBook("Returned Later", "Author", "Genre", false);
+        assertEquals(2, library.getAvailableCount());
+        assertEquals(2, library.getCheckedOutCount());
+
+        Map<String, String> updates = new HashMap<>();
+        updates.put("availability", "false");
+        library.updateBook(books.get(2).getBookID(), updates);
+        library.deleteBookByID(books.get(0).getBookID());
+        assertEquals(1, library.getAvailableCount());
+        assertEquals(2, library.getCheckedOutCount());
+        assertEquals(List.of(books.get(1)), library.getAvailableBooks());
+    }
+
+    @Test
+    public void testFacetCounts() {
+        library.addBook("Animal Farm", "George Orwell", "Dystopian", true);
+        library.borrowBook("user1", library.searchBookByTitle("1984").getBookID());
+        FacetCounts.Facet dystopian = library.getGenreFacets().get(0);
+        assertEquals("Dystopian", dystopian.getValue());
+        assertEquals(2, dystopian.getTotal());
+        assertEquals(1, dystopian.getAvailable());
+
+        Map<String, String> updates = new HashMap<>();
+        updates.put("genre", "Satire");
+        library.updateBook(library.searchBookByTitle("Animal Farm").getBookID(), updates);
+        library.returnBook("user1", library.searchBookByTitle("1984").getBookID());
+        library.deleteBook("Moby Dick");
+        assertEquals(1, library.getGenreFacet("Dystopian").getAvailable());
+        assertEquals(1, library.getGenreFacet("Satire").getTotal());
+        assertNull(library.getGenreFacet("Adventure"));
+        assertEquals(2, library.getAuthorFacet("George Orwell").getAvailable());
+        assertEquals(3, library.getGenreFacets().size());
+    }
+
+    @Test
+    public void testStringPoolSharesAuthorsAndGenres() throws IOException {
+        Path file = tempDir.resolve("pooled.csv");
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            csv.append("Book ").append(i).append(",Author ").append(i % 4).append(",Genre,true\n");
+        }
+        Files.writeString(file, csv);
+        library.loadBooksInBulk(file.toString());
+
+        List<Book> books = library.getBooks();
+        assertSame(books.get(3).getGenre(), books.get(50).getGenre());
+        assertSame(books.get(4).getAuthor(), books.get(8).getAuthor());
+        StringPool pool = library.getStringPool();
+        assertTrue(pool.getHitRate() > 0.9);
+        assertTrue(pool.getBytesSaved() > 0);
+    }
+
+    @Test
+    public void testGeneratedWorkloadReplays() throws Exception {
+        Path catalog = tempDir.resolve("catalog.csv");
+        Path trace = tempDir.resolve("trace.csv");
+        try (Writer out = Files.newBufferedWriter(catalog)) {
+            new CatalogGenerator(7, 500).writeCatalog(out, 500);
+        }
+        long[] rows = new long[1];
+        BitSet available = CatalogGenerator.readAvailability(catalog, rows);
+        try (Writer out = Files.newBufferedWriter(trace)) {
+            new CatalogGenerator(7, 500).writeWorkload(out, available, rows[0], 2_000, 50, 0.4);
+        }
+
+        Library loaded = new Library(false);
+        assertEquals(500, loaded.loadBooksInBulk(catalog.toString()).getBooksLoaded());
+        WorkloadReplayer.ReplayReport report = WorkloadReplayer.replay(loaded, trace);
+        assertEquals(2_000, report.getSucceeded() + report.getFailed());
+        long returns = Files.readAllLines(trace).stream().filter(line -> line.startsWith("return")).count();
+        assertTrue(report.getSucceeded() >= returns); // Every return is of a book the trace borrowed
+    }
+
+    @Test
+    public void testLoansAndHistoryIndexes() {
+        List<Book> books = new ArrayList<>(library.getBooks()); // Snapshot: books are deleted below
+        library.borrowBook("user1", books.get(0).getBookID());
+        library.borrowBook("user1", books.get(1).getBookID());
+        library.borrowBook("user2", books.get(2).getBookID());
+        library.returnBook("user1", books.get(0).getBookID());
+        library.borrowBook("user2", books.get(0).getBookID());
+
+        assertEquals(List.of(books.get(1)), library.loansFor("user1"));
+        assertEquals(List.of(books.get(2), books.get(0)), library.loansFor("user2"));
+        assertTrue(library.loansFor("nobody").isEmpty());
+
+        List<Transaction> history = library.historyFor(books.get(0).getBookID());
+        assertEquals(3, history.size());
+        assertEquals("borrow", history.get(0).getTransactionType());
+        assertEquals("user2", history.get(2).getUserID());
+        assertEquals(3, library.userHistoryFor("user1").size());
+
+        library.deleteBookByID(books.get(2).getBookID());
+        assertEquals(List.of(books.get(0)), library.loansFor("user2"));
+        assertEquals(1, library.historyFor(books.get(2).getId()).size());
+    }
+
+    @Test
+    public void testOverdueLoans() {
+        List<Book> books = library.getBooks();
+        LocalDate today = LocalDate.now();
+        library.borrowBook("user1", books.get(0).getId());
+        library.borrowBook("user2", books.get(1).getId(), today.plusDays(100));
+        library.borrowBook("user3", books.get(2).getId(), today.plusDays(5000));
+        assertEquals(today.plusDays(Library.LOAN_DAYS), library.getDueDate(books.get(0).getId()));
+
+        assertTrue(library.checkOverdue(today.plusDays(Library.LOAN_DAYS)).isEmpty());
+        assertEquals(List.of(books.get(0)), library.checkOverdue(today.plusDays(Library.LOAN_DAYS + 1)));
+        assertTrue(library.checkOverdue(today.plusDays(Library.LOAN_DAYS + 2)).isEmpty()); // Reported once
+
+        library.returnBook("user2", books.get(1).getId());
+        assertNull(library.getDueDate(books.get(1).getId()));
+        assertTrue(library.checkOverdue(today.plusDays(4000)).isEmpty());
+        assertEquals(List.of(books.get(2)), library.checkOverdue(today.plusDays(5001)));
+    }
+
+    @Test
+    public void testBatchBorrowAndReturn() throws IOException {
+        List<Book> books = library.getBooks();
+        LibraryId first = books.get(0).getId();
+        LibraryId second = books.get(1).getId();
+        try (TransactionJournal journal = new TransactionJournal(tempDir, TransactionJournal.DEFAULT_SEGMENT_BYTES)) {
+            library.attachJournal(journal);
+            library.borrowBook("user2", books.get(2).getId());
+            boolean[] borrowed = library.borrowBooks("user1", List.of(first, books.get(2).getId(), second, first,
+                    LibraryId.random()));
+            assertArrayEquals(new boolean[] {true, false, true, false, false}, borrowed);
+            assertEquals(3, journal.getLastLsn());
+            assertEquals(3, library.getLastLsn());
+            assertEquals(List.of(books.get(0), books.get(1)), library.loansFor("user1"));
+            assertEquals(0, library.getAvailableCount());
+
+            assertArrayEquals(new boolean[] {true, false}, library.returnBooks("user1", List.of(second, second)));
+            assertTrue(library.getBook(second).isAvailable());
+            assertNull(library.getDueDate(second));
+            assertEquals(4, library.getLastLsn());
+        }
+    }
+
+    @Test
+    public void testBulkUpdateByFilter() {
+        library.addBook("Brave New World", "Aldous Huxley", "Dystopian", true);
+        library.borrowBook("user1", library.searchBookByTitle("1984").getId());
+
+        int updated = library.updateBooks(new BookFilter().genre("dystopian"), new BookPatch().genre("Science Fiction"));
+        assertEquals(2, updated);
+        assertNull(library.getGenreFacet("Dystopian"));
+        assertEquals(2, library.getGenreFacet("Science Fiction").getTotal());
+        assertEquals(1, library.getGenreFacet("Science Fiction").getAvailable());
+        assertEquals(2, library.searchBooks("science fiction", true).size());
+
+        updated = library.updateBooks(new BookFilter().genre("Science Fiction").availability(true),
+                new BookPatch().author("A. Huxley"));
+        assertEquals(1, updated);
+        assertEquals("A. Huxley", library.searchBookByTitle("Brave New World").getAuthor());
+        assertEquals("George Orwell", library.searchBookByTitle("1984").getAuthor());
+
+        LibraryId gatsby = library.searchBookByTitle("The Great Gatsby").getId();
+        assertEquals(1, library.updateBooks(Map.of(gatsby, new BookPatch().title("Gatsby"), LibraryId.random(),
+                new BookPatch().title("Nothing"))));
+        assertEquals(gatsby, library.searchBookByTitle("gatsby").getId());
+    }
+
+    @Test
+    public void testBulkDelete() {
+        library.addBook("Animal Farm", "George Orwell", "Dystopian", true);
+        library.addBook("Brave New World", "Aldous Huxley", "Dystopian", true);
+        library.borrowBook("user1", library.searchBookByTitle("1984").getId());
+
+        assertEquals(2, library.deleteBooks(new BookFilter().author("george orwell")));
+        assertNull(library.searchBookByTitle("1984"));
+        assertTrue(library.loansFor("user1").isEmpty());
+        assertEquals(1, library.getGenreFacet("Dystopian").getTotal());
+        assertEquals(3, library.getAvailableCount());
+
+        List<LibraryId> ids = List.of(library.searchBookByTitle("Moby Dick").getId(), LibraryId.random());
+        assertEquals(1, library.deleteBooks(ids));
+        assertEquals(2, library.getBooks().size());
+        assertEquals(0, library.deleteBooks(ids));
+    }
+
+    @Test
+    public void testAvailabilityPatchEndsLoan() {
+        LibraryId id = library.searchBookByTitle("1984").getId();
+        library.borrowBook("user1", id, LocalDate.now().minusDays(1));
+
+        assertEquals(1, library.updateBooks(new BookFilter().genre("Dystopian"), new BookPatch().availability(true)));
+        assertTrue(library.getBook(id).isAvailable());
+        assertNull(library.getBorrower(id));
+        assertNull(library.getDueDate(id));
+        assertTrue(library.loansFor("user1").isEmpty());
+        assertTrue(library.checkOverdue(LocalDate.now().plusDays(1)).isEmpty());
+        assertTrue(library.borrowBook("user2", id));
+    }
+
+    @Test
+    public void testRecoveryKeepsCustomDueDates() throws IOException {
+        List<Book> books = library.getBooks();
+        LocalDate custom = LocalDate.now().plusDays(3);
+        Path journalDir = tempDir.resolve("journal");
+        try (TransactionJournal journal = new TransactionJournal(journalDir, TransactionJournal.DEFAULT_SEGMENT_BYTES)) {
+            library.attachJournal(journal);
+            library.borrowBook("user1", books.get(0).getId(), custom);
+            library.borrowBooks("user2", List.of(books.get(1).getId()), custom.plusDays(1));
+            library.borrowBook("user3", books.get(2).getId());
+        }
+
+        Library restarted = new Library(false);
+        List<Book> catalog = new ArrayList<>();
+        for (Book book : books) {
+            catalog.add(new Book(book.getId(), book.getTitle(), book.getAuthor(), book.getGenre(), true));
+        }
+        restarted.addBooks(catalog);
+        new LibraryRecovery().recover(restarted, journalDir, 0);
+
+        assertEquals(custom, restarted.getDueDate(books.get(0).getId()));
+        assertEquals(custom.plusDays(1), restarted.getDueDate(books.get(1).getId()));
+        assertEquals(library.getDueDate(books.get(2).getId()), restarted.getDueDate(books.get(2).getId()));
+    }
+
+    @Test
+    public void testJournalStopsAfterWriteOrForceFailure() throws IOException {
+        for (boolean failForce : new boolean[] {false, true}) {
+            Path journalDir = tempDir.resolve(failForce ? "force" : "write");
+            List<FailingChannel> channels = new ArrayList<>();
+            LibraryId bookId = LibraryId.random();
+            try (TransactionJournal journal = new TransactionJournal(journalDir, TransactionJournal.DEFAULT_SEGMENT_BYTES,
+                    segment -> {
+                        FailingChannel channel = new FailingChannel(FileChannel.open(segment,
+                                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+                        channels.add(channel);
+                        return channel;
+                    })) {
+                assertEquals(1, journal.append(new Transaction(LibraryId.random(), "user1", bookId, "borrow")));
+                long durableSize = channels.get(0).size();
+                if (failForce) {
+                    channels.get(0).failForce = true;
+                } else {
+                    channels.get(0).failWrite = true;
+                }
+                assertThrows(IOException.class,
+                        () -> journal.append(new Transaction(LibraryId.random(), "user2", bookId, "return")));
+                assertEquals(durableSize, channels.get(0).size()); // Torn or unacknowledged record removed
+                assertEquals(1, journal.getLastLsn());
+                assertThrows(IOException.class,
+                        () -> journal.append(new Transaction(LibraryId.random(), "user3", bookId, "return")));
+            }
+
+            try (TransactionJournal reopened = new TransactionJournal(journalDir, TransactionJournal.DEFAULT_SEGMENT_BYTES)) {
+                assertEquals(2, reopened.append(new Transaction(LibraryId.random(), "user4", bookId, "return")));
+            }
+            List<String> users = new ArrayList<>();
+            TransactionJournal.replay(journalDir, 0, (lsn, transaction) -> users.add(transaction.getUserID()));
+            assertEquals(List.of("user1", "user4"), users);
+        }
+    }
+
+    @Test
+    public void testJournalRejectsOversizedIdsAndUnknownTypes() throws IOException {
+        Path journalDir = tempDir.resolve("journal");
+        LibraryId bookId = LibraryId.random();
+        String longUser = "u".repeat(0x10000);
+        try (TransactionJournal journal = new TransactionJournal(journalDir, TransactionJournal.DEFAULT_SEGMENT_BYTES)) {
+            assertThrows(IOException.class,
+                    () -> journal.append(new Transaction(LibraryId.random(), longUser, bookId, "borrow")));
+            assertThrows(IOException.class, () -> journal.appendAll(List.of(
+                    new Transaction(LibraryId.random(), "user1", bookId, "borrow"),
+                    new Transaction(LibraryId.random(), longUser, bookId, "return"))));
+            assertEquals(0, journal.getLastLsn()); // Nothing from the rejected batch was written
+            assertEquals(1, journal.append(new Transaction(LibraryId.random(), "user1", bookId, "return")));
+        }
+
+        // Rewrite the record's type byte to an unknown value, keeping the checksum valid
+        Path segment = Files.list(journalDir).findFirst().orElseThrow();
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[16] = 9; // Header (8 bytes), then the LSN (8 bytes), then the type
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 8, ByteBuffer.wrap(bytes).getInt(0));
+        ByteBuffer.wrap(bytes).putInt(4, (int) crc.getValue());
+        Files.write(segment, bytes);
+
+        assertThrows(IOException.class, () -> TransactionJournal.replay(journalDir, 0, (lsn, transaction) -> { }));
+        assertThrows(IOException.class,
+                () -> TransactionJournal.readParallel(journalDir, 0, ForkJoinPool.commonPool(), 2));
+    }
+
+    /**
+     * A file channel that can be told to tear its next write or fail its next force, to simulate disk errors.
+     */
+    private static final class FailingChannel extends FileChannel {
+        private final FileChannel delegate;
+        boolean failWrite;
+        boolean failForce;
+
+        FailingChannel(FileChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (failWrite) {
+                failWrite = false;
+                ByteBuffer part = src.slice();
+                part.limit(Math.min(5, part.remaining()));
+                src.position(src.position() + delegate.write(part));
+                throw new IOException("Simulated disk full");
+            }
+            return delegate.write(src);
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            if (failForce) {
+                failForce = false;
+                throw new IOException("Simulated fsync failure");
+            }
+            delegate.force(metaData);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return delegate.write(srcs, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return delegate.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
     }
 }
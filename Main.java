@@ -1,5 +1,6 @@
 package com.example;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Scanner;
@@ -19,6 +20,9 @@ import java.util.Scanner;
 public class Main {
     private static final Library library = new Library();
 
+    /** Prints string pool statistics after each load; enable with -Dlms.diagnostics=true. */
+    private static final boolean DIAGNOSTICS = Boolean.getBoolean("lms.diagnostics");
+
     /**
      * Main method of the Library Management System.
      * <p>
@@ -42,6 +46,7 @@ public class Main {
             System.out.println("7. Check out a book");
             System.out.println("8. Check in a book");
             System.out.println("9. Exit");
+            System.out.println("10. Show available books");
             System.out.print("Enter your selection: ");
             int choice = scanner.nextInt();
             scanner.nextLine(); // Consume newline
@@ -50,7 +55,7 @@ public class Main {
                 case 1:
                     System.out.print("Enter the file path: ");
                     String filePath = scanner.nextLine();
-                    library.loadBooksFromFile(filePath);
+                    loadBooks(filePath);
                     break;
                 case 2:
                     addSingleBook(scanner);
@@ -73,7 +78,6 @@ public class Main {
                 case 6:
                     printLibraryContents();
                     break;
-
                 case 7:
                     System.out.print("Enter your user ID: ");
                     String userId = scanner.nextLine();
@@ -101,6 +105,9 @@ public class Main {
                 case 9:
                     running = false;
                     break;
+                case 10:
+                    printAvailableBooks();
+                    break;
                 default:
                     System.out.println("Invalid choice. Please try again.");
             }
@@ -109,6 +116,26 @@ public class Main {
         scanner.close();
     }
 
+    /**
+     * Loads books from a file and prints a summary, including any rows that could not be read.
+     *
+     * @param filePath the path to the file containing book data
+     */
+    private static void loadBooks(String filePath) {
+        try {
+            BulkLoadReport report = library.loadBooksInBulk(filePath);
+            for (String error : report.getErrorSamples()) {
+                System.out.println("Invalid book data: " + error);
+            }
+            System.out.println(report);
+            if (DIAGNOSTICS) {
+                System.out.println(library.getStringPool());
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading the file: " + e.getMessage());
+        }
+    }
+
     /**
      * Prompts the user to input details for a new book and adds it to the library.
      *
@@ -165,9 +192,31 @@ public class Main {
     private static void printLibraryContents() {
         System.out.println("Current Library Contents:");
         for (Book book : library.getBooks()) {
-            System.out.println("ID: " + book.getBookID() + ", Title: " + book.getTitle() +
-                    ", Author: " + book.getAuthor() + ", Genre: " + book.getGenre() +
-                    ", Available: " + book.isAvailable());
+            printBook(book);
         }
+        System.out.println(library.getAvailableCount() + " available, "
+                + library.getCheckedOutCount() + " checked out.");
+    }
+
+    /**
+     * Prints only the books that can be checked out, followed by how many there are.
+     */
+    private static void printAvailableBooks() {
+        System.out.println("Available Books:");
+        for (Book book : library.getAvailableBooks()) {
+            printBook(book);
+        }
+        System.out.println(library.getAvailableCount() + " available.");
+    }
+
+    /**
+     * Prints one book on a single line.
+     *
+     * @param book the book to print
+     */
+    private static void printBook(Book book) {
+        System.out.println("ID: " + book.getBookID() + ", Title: " + book.getTitle() +
+                ", Author: " + book.getAuthor() + ", Genre: " + book.getGenre() +
+                ", Available: " + book.isAvailable());
     }
 }
\ No newline at end of file
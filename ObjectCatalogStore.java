@@ -0,0 +1,57 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Catalog store that keeps every {@link Book} as an object, indexed by ID and by ordinal.
+ * <p>
+ * The books handed out are the ones that were added, so changes made to them are the changes made to
+ * the catalog.
+ * </p>
+ */
+class ObjectCatalogStore implements CatalogStore {
+    private final Map<LibraryId, Book> byId = new HashMap<>();
+    private final List<Book> byOrdinal = new ArrayList<>(); // Null once the book is removed
+
+    @Override
+    public int add(Book book) {
+        int ordinal = byOrdinal.size();
+        book.setOrdinal(ordinal);
+        byOrdinal.add(book);
+        byId.put(book.getId(), book);
+        return ordinal;
+    }
+
+    @Override
+    public Book get(int ordinal) {
+        return ordinal >= 0 && ordinal < byOrdinal.size() ? byOrdinal.get(ordinal) : null;
+    }
+
+    @Override
+    public int find(LibraryId id) {
+        Book book = byId.get(id);
+        return book == null ? -1 : book.getOrdinal();
+    }
+
+    @Override
+    public void remove(int ordinal) {
+        Book book = get(ordinal);
+        if (book != null) {
+            byOrdinal.set(ordinal, null);
+            byId.remove(book.getId(), book);
+        }
+    }
+
+    @Override
+    public int size() {
+        return byId.size();
+    }
+
+    @Override
+    public int ordinalBound() {
+        return byOrdinal.size();
+    }
+}
@@ -0,0 +1,241 @@
+package com.example;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Finds loans that have become overdue in the Library Management System (LMS), without scanning every loan.
+ * <p>
+ * Loans are kept in a hierarchical timing wheel with a resolution of one day. Each of the three levels
+ * has 64 slots: the first covers the next 64 days one day per slot, the second the next 4,096 days 64
+ * days per slot, and the third the next 262,144 days 4,096 days per slot. A loan is put in the finest
+ * slot that covers its date. When the wheel moves into a new 64-day (or 4,096-day) span, the loans in
+ * the matching coarser slot are moved down a level. Scheduling and cancelling a loan take constant time,
+ * and each loan is moved at most twice before it fires, so advancing the wheel costs constant amortized
+ * time per loan plus one step per day advanced, however many loans are active.
+ * </p>
+ * <p>
+ * A loan fires on the first day after its due date. Loans scheduled with a due date that has already
+ * passed fire on the next call to {@link #advanceTo(LocalDate, Handler)}.
+ * </p>
+ */
+class OverdueScheduler {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 3;
+    private static final long MAX_DELAY = 1L << (SLOT_BITS * LEVELS);
+
+    /**
+     * Receives the loans that become overdue.
+     */
+    interface Handler {
+        /**
+         * Handles a loan that has just become overdue.
+         *
+         * @param bookId  the ID of the borrowed book
+         * @param userId  the ID of the user holding it
+         * @param dueDate the date the book was due back
+         */
+        void overdue(LibraryId bookId, String userId, LocalDate dueDate);
+    }
+
+    /**
+     * A scheduled loan, linked into the list of its wheel slot.
+     */
+    private static final class Entry {
+        final LibraryId bookId;
+        final String userId;
+        final long dueDay;
+        Entry previous;
+        Entry next;
+        int slot = -1; // Index into slots, or -1 once fired or while pending
+
+        Entry(LibraryId bookId, String userId, long dueDay) {
+            this.bookId = bookId;
+            this.userId = userId;
+            this.dueDay = dueDay;
+        }
+
+        long fireDay() {
+            return dueDay + 1;
+        }
+    }
+
+    private final Entry[] slots = new Entry[LEVELS * SLOTS];
+    private final Map<LibraryId, Entry> loans = new HashMap<>();
+    private Entry pending; // Loans whose fire day has been reached but that have not been handed out yet
+    private long currentDay;
+
+    /**
+     * Constructs a scheduler whose wheel starts at the given day.
+     *
+     * @param today the current date
+     */
+    OverdueScheduler(LocalDate today) {
+        this.currentDay = today.toEpochDay();
+    }
+
+    /**
+     * Schedules a loan, replacing any loan already scheduled for the same book.
+     *
+     * @param bookId  the ID of the borrowed book
+     * @param userId  the ID of the user holding it
+     * @param dueDate the date the book is due back
+     */
+    void schedule(LibraryId bookId, String userId, LocalDate dueDate) {
+        cancel(bookId);
+        Entry entry = new Entry(bookId, userId, dueDate.toEpochDay());
+        loans.put(bookId, entry);
+        place(entry);
+    }
+
+    /**
+     * Removes the loan of a book, whether or not it has fired.
+     *
+     * @param bookId the ID of the book
+     * @return true if a loan was scheduled for the book
+     */
+    boolean cancel(LibraryId bookId) {
+        Entry entry = loans.remove(bookId);
+        if (entry == null) {
+            return false;
+        }
+        unlink(entry);
+        return true;
+    }
+
+    /**
+     * Gets the due date of a book's loan.
+     *
+     * @param bookId the ID of the book
+     * @return the due date, or null if no loan is scheduled for the book
+     */
+    LocalDate getDueDate(LibraryId bookId) {
+        Entry entry = loans.get(bookId);
+        return entry == null ? null : LocalDate.ofEpochDay(entry.dueDay);
+    }
+
+    /**
+     * Gets the number of loans scheduled, including those that have already fired.
+     *
+     * @return the number of loans
+     */
+    int size() {
+        return loans.size();
+    }
+
+    /**
+     * Moves the wheel forward to the given day and passes every loan that becomes overdue on the way to
+     * the handler. Fired loans keep their due date until they are cancelled. The handler must not
+     * schedule or cancel loans.
+     *
+     * @param today   the current date; earlier dates than the last one advanced to are ignored
+     * @param handler receives the loans that became overdue
+     * @return the number of loans that became overdue
+     */
+    int advanceTo(LocalDate today, Handler handler) {
+        int fired = firePending(handler);
+        long target = today.toEpochDay();
+        while (currentDay < target) {
+            currentDay++;
+            // Move loans down from the coarser levels as the wheel enters a new span, highest level first
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentDay & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    int slot = level * SLOTS + (int) ((currentDay >>> (SLOT_BITS * level)) & (SLOTS - 1));
+                    Entry entry = slots[slot];
+                    slots[slot] = null;
+                    while (entry != null) {
+                        Entry next = entry.next;
+                        entry.previous = null;
+                        entry.next = null;
+                        entry.slot = -1;
+                        place(entry);
+                        entry = next;
+                    }
+                }
+            }
+            fired += firePending(handler); // Loans moved down that fall due today
+            int slot = (int) (currentDay & (SLOTS - 1));
+            Entry entry = slots[slot];
+            slots[slot] = null;
+            while (entry != null) {
+                Entry next = entry.next;
+                entry.previous = null;
+                entry.next = null;
+                entry.slot = -1;
+                if (entry.fireDay() <= currentDay) {
+                    handler.overdue(entry.bookId, entry.userId, LocalDate.ofEpochDay(entry.dueDay));
+                    fired++;
+                } else {
+                    place(entry);
+                }
+                entry = next;
+            }
+        }
+        return fired;
+    }
+
+    /**
+     * Passes every loan on the pending list to the handler.
+     */
+    private int firePending(Handler handler) {
+        int fired = 0;
+        while (pending != null) {
+            Entry entry = pending;
+            unlink(entry);
+            handler.overdue(entry.bookId, entry.userId, LocalDate.ofEpochDay(entry.dueDay));
+            fired++;
+        }
+        return fired;
+    }
+
+    /**
+     * Puts an entry in the finest slot that covers its fire day, relative to the current day.
+     */
+    private void place(Entry entry) {
+        long fireDay = entry.fireDay();
+        long delay = fireDay - currentDay;
+        if (delay <= 0) {
+            entry.next = pending;
+            if (pending != null) {
+                pending.previous = entry;
+            }
+            pending = entry;
+            return;
+        }
+        if (delay >= MAX_DELAY) {
+            fireDay = currentDay + MAX_DELAY - 1; // Parked in the last slot and placed again when it comes up
+        }
+        int level = 0;
+        while (level < LEVELS - 1 && fireDay - currentDay >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        int slot = level * SLOTS + (int) ((fireDay >>> (SLOT_BITS * level)) & (SLOTS - 1));
+        entry.slot = slot;
+        entry.next = slots[slot];
+        if (entry.next != null) {
+            entry.next.previous = entry;
+        }
+        slots[slot] = entry;
+    }
+
+    /**
+     * Removes an entry from the slot list or pending list it is in, if any.
+     */
+    private void unlink(Entry entry) {
+        if (entry.previous != null) {
+            entry.previous.next = entry.next;
+        } else if (entry.slot >= 0 && slots[entry.slot] == entry) {
+            slots[entry.slot] = entry.next;
+        } else if (pending == entry) {
+            pending = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.previous = entry.previous;
+        }
+        entry.previous = null;
+        entry.next = null;
+        entry.slot = -1;
+    }
+}
@@ -0,0 +1,215 @@
+package com.example;
+
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Table model that shows the <code>books</code> table one page at a time.
+ * <p>
+ * Rows are fetched only when the table asks for them, ordered by barcode. A page is read with a
+ * keyset query (<code>WHERE barcode &gt; last barcode of the previous page</code>), so scrolling
+ * forward never re-reads earlier rows. When the user jumps to a page whose start is unknown, the
+ * query starts from the nearest known page and skips the rows in between.
+ * </p>
+ * <p>
+ * The model can be limited to books with one status, such as only the books that are checked in.
+ * The filter is part of every query, so the database skips the other rows rather than the table.
+ * </p>
+ * <p>
+ * Queries run on a background thread. Until a page arrives its cells show "Loading...". Only the
+ * most recently used pages are kept in memory. All cache state is touched only on the Event
+ * Dispatch Thread.
+ * </p>
+ */
+class PagedBookTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    static final int DEFAULT_PAGE_SIZE = 200;
+    static final int DEFAULT_CACHED_PAGES = 20;
+
+    private static final String[] COLUMN_NAMES = {"Barcode", "Title", "Author", "Genre", "Status", "Due Date"};
+    private static final String COLUMNS = "barcode, title, author, genre, status, due_date";
+    private static final String LOADING = "Loading...";
+
+    private final int pageSize;
+    private final Map<Integer, Object[][]> pages;
+    private final NavigableMap<Integer, String> lastBarcodes = new TreeMap<>(); // page -> last barcode on it
+    private final Set<Integer> loading = new HashSet<>();
+    private final ExecutorService fetcher;
+    private final Consumer<SQLException> errorHandler;
+    private final String status;
+    private int rowCount;
+
+    /**
+     * Constructs a model of every book and starts counting the rows in the background.
+     *
+     * @param pageSize     the number of rows fetched per query
+     * @param cachedPages  the maximum number of pages kept in memory
+     * @param errorHandler called on the Event Dispatch Thread when a query fails
+     */
+    PagedBookTableModel(int pageSize, int cachedPages, Consumer<SQLException> errorHandler) {
+        this(pageSize, cachedPages, null, errorHandler);
+    }
+
+    /**
+     * Constructs a model of the books with the given status and starts counting the rows in the background.
+     *
+     * @param pageSize     the number of rows fetched per query
+     * @param cachedPages  the maximum number of pages kept in memory
+     * @param status       the status of the books to show, such as <code>checked in</code>, or null for all books
+     * @param errorHandler called on the Event Dispatch Thread when a query fails
+     */
+    PagedBookTableModel(int pageSize, int cachedPages, String status, Consumer<SQLException> errorHandler) {
+        this.pageSize = pageSize;
+        this.status = status;
+        this.errorHandler = errorHandler;
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Object[][]> eldest) {
+                return size() > cachedPages;
+            }
+        };
+        this.fetcher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "book-page-fetcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        fetcher.execute(this::countRows);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        int page = rowIndex / pageSize;
+        Object[][] rows = pages.get(page);
+        if (rows == null) {
+            requestPage(page);
+            return columnIndex == 1 ? LOADING : null;
+        }
+        int offset = rowIndex % pageSize;
+        return offset < rows.length ? rows[offset][columnIndex] : null;
+    }
+
+    /**
+     * Stops the background thread. Call this when the table is no longer shown.
+     */
+    void close() {
+        fetcher.shutdownNow();
+    }
+
+    private void countRows() {
+        String query = "SELECT COUNT(*) FROM books" + (status == null ? "" : " WHERE status = ?");
+        try (Connection connection = DatabaseConnector.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            if (status != null) {
+                stmt.setString(1, status);
+            }
+            int count;
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                count = rs.getInt(1);
+            }
+            SwingUtilities.invokeLater(() -> {
+                rowCount = count;
+                fireTableDataChanged();
+            });
+        } catch (SQLException e) {
+            SwingUtilities.invokeLater(() -> errorHandler.accept(e));
+        }
+    }
+
+    /**
+     * Schedules a page to be fetched unless it is already on its way.
+     */
+    private void requestPage(int page) {
+        if (fetcher.isShutdown() || !loading.add(page)) {
+            return;
+        }
+        // Start from the closest page before this one whose last barcode is known
+        Map.Entry<Integer, String> anchor = lastBarcodes.floorEntry(page - 1);
+        String afterBarcode = anchor == null ? null : anchor.getValue();
+        int skip = (page - (anchor == null ? 0 : anchor.getKey() + 1)) * pageSize;
+        fetcher.execute(() -> fetchPage(page, afterBarcode, skip));
+    }
+
+    private void fetchPage(int page, String afterBarcode, int skip) {
+        String where = status == null ? "" : "status = ?";
+        if (afterBarcode != null) {
+            where += (where.isEmpty() ? "" : " AND ") + "barcode > ?";
+        }
+        String query = "SELECT " + COLUMNS + " FROM books"
+                + (where.isEmpty() ? "" : " WHERE " + where)
+                + " ORDER BY barcode LIMIT ?"
+                + (skip > 0 ? " OFFSET ?" : "");
+        try (Connection connection = DatabaseConnector.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            int param = 1;
+            if (status != null) {
+                stmt.setString(param++, status);
+            }
+            if (afterBarcode != null) {
+                stmt.setString(param++, afterBarcode);
+            }
+            stmt.setInt(param++, pageSize);
+            if (skip > 0) {
+                stmt.setInt(param, skip);
+            }
+
+            Object[][] rows = new Object[pageSize][];
+            int count = 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows[count++] = new Object[]{rs.getString("barcode"), rs.getString("title"),
+                            rs.getString("author"), rs.getString("genre"), rs.getString("status"),
+                            rs.getDate("due_date")};
+                }
+            }
+            Object[][] fetched = count == pageSize ? rows : Arrays.copyOf(rows, count);
+            SwingUtilities.invokeLater(() -> pageLoaded(page, fetched));
+        } catch (SQLException e) {
+            // The page stays marked as loading so a failing query is not retried on every repaint
+            SwingUtilities.invokeLater(() -> errorHandler.accept(e));
+        }
+    }
+
+    private void pageLoaded(int page, Object[][] rows) {
+        loading.remove(page);
+        pages.put(page, rows);
+        if (rows.length > 0) {
+            lastBarcodes.put(page, (String) rows[rows.length - 1][0]);
+        }
+        int first = page * pageSize;
+        int last = Math.min(rowCount, first + pageSize) - 1;
+        if (last >= first) {
+            fireTableRowsUpdated(first, last);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deduplicating pool for the author and genre strings of the Library Management System (LMS).
+ * <p>
+ * A catalog repeats a few thousand authors and genres across millions of books, but every line read
+ * from a file produces new strings for them. Passing those strings through the pool returns one shared
+ * instance per distinct value, so the copies can be garbage collected as soon as the line is parsed.
+ * </p>
+ * <p>
+ * The pool is safe to use from the parsing threads of a bulk load. It stops taking new values once it
+ * holds {@link #DEFAULT_MAX_SIZE} of them (or the configured limit) and then hands unknown values back
+ * unchanged, so a column that is not as repetitive as expected cannot grow it without bound. The pool
+ * counts lookups, hits and an estimate of the heap saved by the hits.
+ * </p>
+ */
+class StringPool {
+    /** Default maximum number of distinct values kept. */
+    static final int DEFAULT_MAX_SIZE = 1 << 20;
+
+    private static final int STRING_OVERHEAD_BYTES = 24 + 16; // String object plus byte[] header
+
+    private final ConcurrentHashMap<String, String> values = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    /**
+     * Constructs a pool that keeps up to {@link #DEFAULT_MAX_SIZE} values.
+     */
+    StringPool() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Constructs a pool with an explicit limit.
+     *
+     * @param maxSize the maximum number of distinct values kept
+     */
+    StringPool(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets the shared instance of a string, adding it to the pool if there is room.
+     *
+     * @param value the string to look up (may be null)
+     * @return the pooled string equal to <code>value</code>, or <code>value</code> itself if it is new or null
+     */
+    String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        lookups.increment();
+        String pooled = values.get(value);
+        if (pooled == null) {
+            if (values.size() >= maxSize) {
+                return value;
+            }
+            pooled = values.putIfAbsent(value, value);
+            if (pooled == null) {
+                return value;
+            }
+        }
+        if (pooled != value) {
+            hits.increment();
+            bytesSaved.add(estimateBytes(value));
+        }
+        return pooled;
+    }
+
+    /**
+     * Gets the number of distinct values in the pool.
+     *
+     * @return the pool size
+     */
+    int size() {
+        return values.size();
+    }
+
+    /**
+     * Gets the number of strings looked up so far.
+     *
+     * @return the number of lookups
+     */
+    long getLookups() {
+        return lookups.sum();
+    }
+
+    /**
+     * Gets the number of lookups that returned an existing pooled string.
+     *
+     * @return the number of hits
+     */
+    long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the share of lookups that returned an existing pooled string.
+     *
+     * @return the hit rate between 0 and 1, or 0 if nothing has been looked up
+     */
+    double getHitRate() {
+        long total = getLookups();
+        return total == 0 ? 0 : (double) getHits() / total;
+    }
+
+    /**
+     * Gets an estimate of the heap freed by sharing strings, assuming compact (one byte per character) strings.
+     *
+     * @return the estimated number of bytes saved
+     */
+    long getBytesSaved() {
+        return bytesSaved.sum();
+    }
+
+    private static long estimateBytes(String value) {
+        return STRING_OVERHEAD_BYTES + ((value.length() + 7) & ~7L); // Arrays are padded to 8 bytes
+    }
+
+    @Override
+    public String toString() {
+        return String.format("String pool: %d values, %d lookups, %.1f%% hits, about %d KB saved",
+                size(), getLookups(), getHitRate() * 100, getBytesSaved() / 1024);
+    }
+}
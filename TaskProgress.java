@@ -0,0 +1,34 @@
+package com.example;
+
+/**
+ * Lets a long-running task in the Library Management System (LMS) report its progress and
+ * find out whether the user has asked it to stop.
+ */
+public interface TaskProgress {
+    /** A progress sink that ignores reports and is never cancelled. */
+    TaskProgress NONE = new TaskProgress() {
+        @Override
+        public void report(String message, int percent) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    /**
+     * Reports how far the task has come.
+     *
+     * @param message a short description of the current step
+     * @param percent the percentage completed, or -1 if it is not known
+     */
+    void report(String message, int percent);
+
+    /**
+     * Checks whether the task has been cancelled. Tasks should check this between steps and stop early.
+     *
+     * @return true if the task should stop
+     */
+    boolean isCancelled();
+}
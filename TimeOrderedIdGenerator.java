@@ -0,0 +1,64 @@
+package com.example;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates time-ordered IDs in the UUID version 7 layout.
+ * <p>
+ * The high 64 bits hold a 48-bit millisecond timestamp, the version and a 12-bit sequence number; the
+ * low 64 bits hold the variant and 62 random bits from {@link ThreadLocalRandom}. Each thread keeps its
+ * own timestamp and sequence, so generation needs no lock, no shared counter and no secure random source.
+ * </p>
+ * <p>
+ * IDs from one thread are strictly increasing. Within a millisecond the sequence is incremented; when
+ * it runs out, or when the clock steps backwards, the thread carries on from its last timestamp plus one
+ * millisecond instead of going back. IDs from different threads in the same millisecond are told apart
+ * by their random bits. These IDs are unique but not unguessable; they are not meant to be secrets.
+ * </p>
+ */
+final class TimeOrderedIdGenerator implements IdGenerator {
+    static final TimeOrderedIdGenerator INSTANCE = new TimeOrderedIdGenerator(System::currentTimeMillis);
+
+    private static final long VERSION_BITS = 0x7000L;
+    private static final long VARIANT_BITS = 0x8000000000000000L;
+    private static final int MAX_SEQUENCE = 0xFFF;
+
+    private final LongSupplier clock;
+    private final ThreadLocal<State> state = ThreadLocal.withInitial(State::new);
+
+    /**
+     * Constructs a generator that reads the time from the given clock.
+     *
+     * @param clock supplies the current time in milliseconds since the epoch
+     */
+    TimeOrderedIdGenerator(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public LibraryId next() {
+        State current = state.get();
+        long now = clock.getAsLong();
+        if (now > current.millis) {
+            current.millis = now;
+            current.sequence = 0;
+        } else if (current.sequence < MAX_SEQUENCE) {
+            current.sequence++;
+        } else {
+            current.millis++; // Sequence exhausted or clock went back; stay ahead of the last ID
+            current.sequence = 0;
+        }
+        long msb = (current.millis << 16) | VERSION_BITS | current.sequence;
+        long lsb = VARIANT_BITS | (ThreadLocalRandom.current().nextLong() >>> 2);
+        return new LibraryId(msb, lsb);
+    }
+
+    /**
+     * The last timestamp and sequence number used by one thread.
+     */
+    private static final class State {
+        private long millis = -1;
+        private int sequence;
+    }
+}
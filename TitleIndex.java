@@ -0,0 +1,127 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Secondary index of books by title for the Library Management System (LMS).
+ * <p>
+ * Titles are case-folded and kept in a sorted map, so exact and prefix lookups take
+ * logarithmic time plus the number of matches. Only case is ignored: leading, trailing
+ * and inner spaces must match, as with {@link String#equalsIgnoreCase(String)}. The index holds the
+ * internal ordinals of the books rather than the books themselves, so it works the same
+ * whichever {@link CatalogStore} holds the catalog. Several books may share a title; they
+ * are returned in the order they were added to the library.
+ * </p>
+ */
+class TitleIndex {
+    private static final int[] NONE = new int[0];
+
+    private final NavigableMap<String, int[]> byTitle = new TreeMap<>();
+
+    /**
+     * Normalizes a title into the key used by the index.
+     *
+     * @param title the title to normalize
+     * @return the lower-cased title, or an empty string if the title is null. Spaces are kept, so a
+     *         prefix such as "the " only matches titles with a space after "the".
+     */
+    static String normalize(String title) {
+        return title == null ? "" : title.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Adds a book to the index under its current title.
+     *
+     * @param ordinal the internal ordinal of the book
+     * @param title   the title of the book
+     */
+    void add(int ordinal, String title) {
+        // Ordinals only grow, so appending keeps each list sorted; most titles hold a single book
+        byTitle.merge(normalize(title), new int[]{ordinal}, (matches, added) -> {
+            int[] grown = Arrays.copyOf(matches, matches.length + 1);
+            grown[matches.length] = ordinal;
+            if (matches.length > 0 && matches[matches.length - 1] > ordinal) {
+                Arrays.sort(grown);
+            }
+            return grown;
+        });
+    }
+
+    /**
+     * Removes a book from the index.
+     *
+     * @param ordinal the internal ordinal of the book
+     * @param title   the title the book was indexed under
+     */
+    void remove(int ordinal, String title) {
+        String key = normalize(title);
+        int[] matches = byTitle.get(key);
+        if (matches == null) {
+            return;
+        }
+        int index = Arrays.binarySearch(matches, ordinal);
+        if (index < 0) {
+            return;
+        }
+        if (matches.length == 1) {
+            byTitle.remove(key);
+            return;
+        }
+        int[] shrunk = new int[matches.length - 1];
+        System.arraycopy(matches, 0, shrunk, 0, index);
+        System.arraycopy(matches, index + 1, shrunk, index, shrunk.length - index);
+        byTitle.put(key, shrunk);
+    }
+
+    /**
+     * Re-indexes a book whose title has changed.
+     *
+     * @param ordinal  the internal ordinal of the book
+     * @param oldTitle the title the book was indexed under
+     * @param newTitle the new title of the book
+     */
+    void rename(int ordinal, String oldTitle, String newTitle) {
+        remove(ordinal, oldTitle);
+        add(ordinal, newTitle);
+    }
+
+    /**
+     * Finds all books whose title matches the given title, ignoring case.
+     *
+     * @param title the title to look up
+     * @return the ordinals of the matching books in the order they were added, or an empty array if there are none
+     */
+    int[] findExact(String title) {
+        int[] matches = byTitle.get(normalize(title));
+        return matches == null ? NONE : matches.clone();
+    }
+
+    /**
+     * Finds all books whose title starts with the given prefix, ignoring case.
+     * Results are ordered by title.
+     *
+     * @param prefix the title prefix to look up
+     * @return the ordinals of the matching books, or an empty array if there are none
+     */
+    int[] findByPrefix(String prefix) {
+        String key = normalize(prefix);
+        Collection<int[]> ranges = key.isEmpty()
+                ? byTitle.values()
+                : byTitle.subMap(key, true, key + Character.MAX_VALUE, false).values();
+        int count = 0;
+        for (int[] matches : ranges) {
+            count += matches.length;
+        }
+        int[] result = new int[count];
+        int next = 0;
+        for (int[] matches : ranges) {
+            System.arraycopy(matches, 0, result, next, matches.length);
+            next += matches.length;
+        }
+        return result;
+    }
+}
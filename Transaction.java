@@ -1,5 +1,6 @@
 package com.example;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 /**
@@ -16,14 +17,18 @@ import java.time.LocalDateTime;
  * </p>
  */
 class Transaction {
-    private String transactionID;  // Unique identifier for the transaction
+    private LibraryId transactionID; // Unique identifier for the transaction
     private String userID;         // ID of the user who initiated the transaction
-    private String bookID;         // ID of the book involved in the transaction
+    private LibraryId bookID;      // ID of the book involved in the transaction
     private String transactionType; // Type of transaction (borrow or return)
     private LocalDateTime date;     // Date and time when the transaction took place
+    private LocalDate dueDate;      // Date a borrowed book is due back, or null if not recorded
 
     /**
      * Constructs a new Transaction object.
+     * <p>
+     * Legacy free-form IDs are accepted and mapped to fixed IDs with {@link LibraryId#of(String)}.
+     * </p>
      *
      * @param transactionID  the unique identifier for the transaction
      * @param userID         the ID of the user initiating the transaction
@@ -31,11 +36,52 @@ class Transaction {
      * @param transactionType the type of transaction (borrow or return)
      */
     public Transaction(String transactionID, String userID, String bookID, String transactionType) {
+        this(LibraryId.of(transactionID), userID, LibraryId.of(bookID), transactionType);
+    }
+
+    /**
+     * Constructs a new Transaction object with compact IDs.
+     *
+     * @param transactionID  the unique identifier for the transaction
+     * @param userID         the ID of the user initiating the transaction
+     * @param bookID         the ID of the book involved in the transaction
+     * @param transactionType the type of transaction (borrow or return)
+     */
+    public Transaction(LibraryId transactionID, String userID, LibraryId bookID, String transactionType) {
+        this(transactionID, userID, bookID, transactionType, LocalDateTime.now()); // Current date and time
+    }
+
+    /**
+     * Constructs a Transaction object with a known date, such as one read back from the transaction journal.
+     *
+     * @param transactionID  the unique identifier for the transaction
+     * @param userID         the ID of the user initiating the transaction
+     * @param bookID         the ID of the book involved in the transaction
+     * @param transactionType the type of transaction (borrow or return)
+     * @param date           the date and time when the transaction took place
+     */
+    Transaction(LibraryId transactionID, String userID, LibraryId bookID, String transactionType, LocalDateTime date) {
+        this(transactionID, userID, bookID, transactionType, date, null);
+    }
+
+    /**
+     * Constructs a borrow Transaction that records when the book is due back.
+     *
+     * @param transactionID  the unique identifier for the transaction
+     * @param userID         the ID of the user initiating the transaction
+     * @param bookID         the ID of the book involved in the transaction
+     * @param transactionType the type of transaction (borrow or return)
+     * @param date           the date and time when the transaction took place
+     * @param dueDate        the date the book is due back, or null if not known
+     */
+    Transaction(LibraryId transactionID, String userID, LibraryId bookID, String transactionType, LocalDateTime date,
+                LocalDate dueDate) {
+        this.dueDate = dueDate;
         this.transactionID = transactionID;
         this.userID = userID;
         this.bookID = bookID;
         this.transactionType = transactionType;
-        this.date = LocalDateTime.now(); // Current date and time
+        this.date = date;
     }
 
     /**
@@ -56,12 +102,30 @@ class Transaction {
         return date;
     }
 
+    /**
+     * Gets the date a borrowed book is due back.
+     *
+     * @return the due date, or null for returns and for borrows recorded without one
+     */
+    LocalDate getDueDate() {
+        return dueDate;
+    }
+
     /**
      * Gets the unique transaction ID.
      *
      * @return the transaction ID
      */
     public String getTransactionID() {
+        return transactionID.toString();
+    }
+
+    /**
+     * Gets the unique transaction ID in its compact form.
+     *
+     * @return the transaction ID
+     */
+    public LibraryId getId() {
         return transactionID;
     }
 
@@ -80,6 +144,15 @@ class Transaction {
      * @return the book ID
      */
     public String getBookID() {
+        return bookID.toString();
+    }
+
+    /**
+     * Gets the ID of the book involved in the transaction in its compact form.
+     *
+     * @return the book ID
+     */
+    public LibraryId getBookLibraryId() {
         return bookID;
     }
 }
\ No newline at end of file
@@ -0,0 +1,658 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, durable journal of {@link Transaction} records for the Library Management System (LMS).
+ * <p>
+ * Every transaction is encoded as a small binary record, given an increasing log sequence number (LSN)
+ * and appended to the current segment file. {@link #append(Transaction)} returns only after the record
+ * has been forced to disk. Appends that arrive while a force is running are written straight away and
+ * made durable together by the next force (group commit), so the cost of an fsync is shared by every
+ * thread waiting on it.
+ * </p>
+ * <p>
+ * Segments are named after the LSN of their first record and a new one is started when the current
+ * segment reaches the configured size. Each record is laid out as:
+ * </p>
+ * <pre>
+ * int   payload length
+ * int   CRC-32 of the payload
+ * long  LSN
+ * byte  type (0 = borrow without due date, 1 = return, 2 = borrow)
+ * long  date, seconds since the epoch (UTC)
+ * int   date, nanoseconds
+ * long  transaction ID, high then low 64 bits
+ * long  book ID, high then low 64 bits
+ * short + bytes  user ID (UTF-8)
+ * long  due date, days since the epoch (type 2 only)
+ * </pre>
+ * <p>
+ * Type 0 is the original borrow record, written before due dates were journaled. It is still read, and
+ * the loan is given the default loan period.
+ * </p>
+ * <p>
+ * A record cut short by a crash fails its length or checksum test; reading stops there, and opening the
+ * journal again truncates the segment to its last complete record.
+ * </p>
+ * <p>
+ * If writing or forcing a record fails while the journal is open, the segment is truncated back to the
+ * end of the last record known to be durable and the journal refuses every further append. Nothing that
+ * a caller was told had failed can later become durable, and no record is written after a torn one.
+ * The journal must be reopened to continue.
+ * </p>
+ */
+class TransactionJournal implements AutoCloseable {
+    /** Default size at which a new segment file is started. */
+    static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;
+    private static final byte BORROW_WITHOUT_DUE_DATE = 0;
+    private static final byte RETURN = 1;
+    private static final byte BORROW = 2;
+
+    /**
+     * Receives the records read back from a journal.
+     */
+    interface EntryHandler {
+        /**
+         * Handles one record.
+         *
+         * @param lsn         the log sequence number of the record
+         * @param transaction the transaction stored in the record
+         */
+        void accept(long lsn, Transaction transaction);
+    }
+
+    /**
+     * Opens segment files for writing. Tests replace it to simulate disk errors.
+     */
+    interface SegmentOpener {
+        /**
+         * Opens a segment, creating it if it does not exist.
+         *
+         * @param segment the segment file
+         * @return a channel for writing to the segment
+         * @throws IOException if the segment cannot be opened
+         */
+        FileChannel open(Path segment) throws IOException;
+    }
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final SegmentOpener opener;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition synced = lock.newCondition();
+
+    private FileChannel channel;
+    private long lastLsn;
+    private long durableLsn;
+    private long durablePosition;   // End of the last durable record in the current segment
+    private boolean syncing;
+    private IOException failure;    // The error that stopped the journal, if any
+
+    /**
+     * Opens the journal in a directory, creating the directory if needed. Appends continue after the
+     * last complete record already in the journal.
+     *
+     * @param directory    the directory holding the segment files
+     * @param segmentBytes the size at which a new segment file is started
+     * @throws IOException if the journal cannot be opened
+     */
+    TransactionJournal(Path directory, long segmentBytes) throws IOException {
+        this(directory, segmentBytes,
+                segment -> FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE));
+    }
+
+    /**
+     * Opens the journal in a directory with an explicit way of opening segment files.
+     *
+     * @param directory    the directory holding the segment files
+     * @param segmentBytes the size at which a new segment file is started
+     * @param opener       opens segment files for writing
+     * @throws IOException if the journal cannot be opened
+     */
+    TransactionJournal(Path directory, long segmentBytes, SegmentOpener opener) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.opener = opener;
+        Files.createDirectories(directory);
+
+        List<Path> segments = segments(directory);
+        if (segments.isEmpty()) {
+            openSegment(1);
+        } else {
+            Path last = segments.get(segments.size() - 1);
+            long[] end = scan(last, 0, null); // {valid length, last LSN}
+            channel = opener.open(last);
+            channel.truncate(end[0]);
+            channel.position(end[0]);
+            lastLsn = end[1] > 0 ? end[1] : firstLsn(last) - 1;
+        }
+        durableLsn = lastLsn;
+        durablePosition = channel.position();
+    }
+
+    /**
+     * Appends a transaction and waits until it is durable on disk.
+     *
+     * @param transaction the transaction to record
+     * @return the log sequence number assigned to the record
+     * @throws IOException if the record cannot be written or forced to disk, the user ID is longer than
+     *                     65535 UTF-8 bytes, or an earlier append failed
+     */
+    long append(Transaction transaction) throws IOException {
+        lock.lock();
+        try {
+            checkUsable();
+            long lsn = write(transaction);
+            awaitDurable(lsn);
+            return lsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends several transactions with consecutive LSNs and waits until all of them are durable on disk.
+     * The records share a single force, so a batch costs one fsync however many transactions it holds.
+     *
+     * @param transactions the transactions to record, in order
+     * @return the log sequence number assigned to the last record, or the last LSN if the list is empty
+     * @throws IOException if the records cannot be written or forced to disk, a user ID is longer than
+     *                     65535 UTF-8 bytes, or an earlier append failed
+     */
+    long appendAll(List<Transaction> transactions) throws IOException {
+        lock.lock();
+        try {
+            checkUsable();
+            for (Transaction transaction : transactions) {
+                userIdBytes(transaction); // Reject the whole batch before writing any of it
+            }
+            long lsn = lastLsn;
+            for (Transaction transaction : transactions) {
+                lsn = write(transaction);
+            }
+            awaitDurable(lsn);
+            return lsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes one record to the current segment, starting a new segment first if it would not fit.
+     * Must be called with the lock held.
+     *
+     * @return the LSN assigned to the record
+     */
+    private long write(Transaction transaction) throws IOException {
+        ByteBuffer record = encode(lastLsn + 1, transaction);
+        try {
+            if (channel.position() > 0 && channel.position() + record.remaining() > segmentBytes) {
+                roll();
+                record = encode(lastLsn + 1, transaction); // Other threads may have appended while rolling
+            }
+            long lsn = lastLsn + 1;
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            lastLsn = lsn;
+            return lsn;
+        } catch (IOException e) {
+            throw fail(e);
+        }
+    }
+
+    /**
+     * Throws if an earlier write or force failed. Must be called with the lock held.
+     */
+    private void checkUsable() throws IOException {
+        if (failure != null) {
+            throw new IOException("Journal stopped after an earlier write failure", failure);
+        }
+    }
+
+    /**
+     * Stops the journal after a write or force fails: removes every record that is not known to be
+     * durable, so that neither a torn record nor one reported as failed stays in the segment, and wakes
+     * the threads waiting for a force. Must be called with the lock held.
+     *
+     * @param cause the error
+     * @return the error, to be thrown by the caller
+     */
+    private IOException fail(IOException cause) {
+        if (failure == null) {
+            failure = cause;
+            try {
+                channel.truncate(durablePosition);
+                channel.position(durablePosition);
+            } catch (IOException e) {
+                cause.addSuppressed(e); // The torn tail is still cut off when the journal is reopened
+            }
+            lastLsn = durableLsn;
+            synced.signalAll();
+        }
+        return cause;
+    }
+
+    /**
+     * Gets the sequence number of the last record appended.
+     *
+     * @return the last LSN, or 0 if the journal is empty
+     */
+    long getLastLsn() {
+        lock.lock();
+        try {
+            return lastLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until every record up to the given LSN has been forced to disk. If no force is running, the
+     * calling thread runs one itself, covering every record written so far.
+     * Must be called with the lock held.
+     */
+    private void awaitDurable(long lsn) throws IOException {
+        while (durableLsn < lsn) {
+            checkUsable();
+            if (syncing) {
+                synced.awaitUninterruptibly();
+                continue;
+            }
+            syncing = true;
+            long target = lastLsn;
+            long targetPosition = channel.position();
+            FileChannel current = channel;
+            lock.unlock();
+            IOException error = null;
+            try {
+                current.force(false);
+            } catch (IOException e) {
+                error = e;
+            } finally {
+                lock.lock();
+                syncing = false;
+                synced.signalAll();
+            }
+            if (error != null) {
+                throw fail(error);
+            }
+            checkUsable(); // Another thread's write failed and cut the forced records off meanwhile
+            durableLsn = Math.max(durableLsn, target);
+            durablePosition = Math.max(durablePosition, targetPosition);
+        }
+    }
+
+    /**
+     * Forces and closes the current segment and starts a new one. Must be called with the lock held.
+     */
+    private void roll() throws IOException {
+        while (syncing) {
+            synced.awaitUninterruptibly(); // Do not close the channel under a running force
+        }
+        channel.force(false);
+        durableLsn = lastLsn;
+        channel.close();
+        openSegment(lastLsn + 1);
+        durablePosition = channel.position();
+    }
+
+    private void openSegment(long firstLsn) throws IOException {
+        Path segment = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstLsn, SEGMENT_SUFFIX));
+        channel = opener.open(segment);
+        channel.position(channel.size());
+        // Make the new file's directory entry durable too
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Not every platform allows opening a directory; the segment data itself is still forced
+        }
+    }
+
+    /**
+     * Forces any remaining records to disk and closes the journal.
+     *
+     * @throws IOException if the journal cannot be closed cleanly
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            while (syncing) {
+                synced.awaitUninterruptibly();
+            }
+            if (failure == null) {
+                channel.force(false);
+            }
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads every complete record in a journal directory, in LSN order.
+     *
+     * @param directory the directory holding the segment files
+     * @param afterLsn  only records with a greater LSN are passed to the handler
+     * @param handler   receives the records
+     * @return the LSN of the last record read, or <code>afterLsn</code> if there were none
+     * @throws IOException if a segment cannot be read
+     */
+    static long replay(Path directory, long afterLsn, EntryHandler handler) throws IOException {
+        long last = afterLsn;
+        List<Path> segments = segments(directory);
+        for (int i = 0; i < segments.size(); i++) {
+            // Skip segments that end before the requested LSN
+            if (i + 1 < segments.size() && firstLsn(segments.get(i + 1)) <= afterLsn + 1) {
+                continue;
+            }
+            long[] end = scan(segments.get(i), afterLsn, handler);
+            last = Math.max(last, end[1]);
+        }
+        return last;
+    }
+
+    /**
+     * Reads every complete record in a journal directory, checksumming and decoding on a pool.
+     * <p>
+     * Each segment is mapped and its record boundaries are found by a quick walk over the length
+     * headers. The records are then split into consecutive slices that are verified and decoded in
+     * parallel, which is where replay spends its time. As with {@link #replay}, a segment is read up to
+     * its first torn or corrupt record.
+     * </p>
+     *
+     * @param directory the directory holding the segment files
+     * @param afterLsn  only records with a greater LSN are returned
+     * @param pool      the pool that decodes the slices
+     * @param slices    the number of slices each segment is split into
+     * @return the records in LSN order, and the LSN of the last record read
+     * @throws IOException if a segment cannot be read
+     */
+    static DecodedRecords readParallel(Path directory, long afterLsn, ForkJoinPool pool, int slices)
+            throws IOException {
+        List<Transaction> transactions = new ArrayList<>();
+        long last = afterLsn;
+        List<Path> segments = segments(directory);
+        for (int i = 0; i < segments.size(); i++) {
+            if (i + 1 < segments.size() && firstLsn(segments.get(i + 1)) <= afterLsn + 1) {
+                continue;
+            }
+            try (FileChannel in = FileChannel.open(segments.get(i), StandardOpenOption.READ)) {
+                ByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+                int[] starts = new int[64];
+                int count = 0;
+                int position = 0;
+                while (buffer.limit() - position >= HEADER_BYTES) {
+                    int length = buffer.getInt(position);
+                    if (length <= 0 || length > buffer.limit() - position - HEADER_BYTES) {
+                        break; // Torn write at the tail
+                    }
+                    if (count == starts.length) {
+                        starts = Arrays.copyOf(starts, count * 2);
+                    }
+                    starts[count++] = position;
+                    position += HEADER_BYTES + length;
+                }
+
+                int perSlice = Math.max(1, (count + slices - 1) / slices);
+                List<ForkJoinTask<DecodedRecords>> tasks = new ArrayList<>();
+                for (int from = 0; from < count; from += perSlice) {
+                    int first = from;
+                    int end = Math.min(count, from + perSlice);
+                    int[] offsets = starts;
+                    tasks.add(pool.submit(() -> decodeSlice(buffer.duplicate(), offsets, first, end, afterLsn)));
+                }
+                for (ForkJoinTask<DecodedRecords> task : tasks) {
+                    DecodedRecords slice = join(task);
+                    transactions.addAll(slice.transactions);
+                    last = Math.max(last, slice.lastLsn);
+                    if (slice.corrupt) {
+                        break; // Nothing after a corrupt record in this segment is trusted
+                    }
+                }
+            }
+        }
+        return new DecodedRecords(transactions, last, false);
+    }
+
+    /**
+     * Waits for a decoding task, rethrowing the I/O error it failed with, if any.
+     */
+    private static DecodedRecords join(ForkJoinTask<DecodedRecords> task) throws IOException {
+        try {
+            return task.join();
+        } catch (RuntimeException e) {
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Verifies and decodes the records starting at <code>offsets[from]</code> to <code>offsets[to - 1]</code>,
+     * stopping at the first record whose checksum does not match.
+     */
+    private static DecodedRecords decodeSlice(ByteBuffer buffer, int[] offsets, int from, int to, long afterLsn)
+            throws IOException {
+        List<Transaction> transactions = new ArrayList<>(to - from);
+        long lastLsn = 0;
+        CRC32 crc = new CRC32();
+        for (int k = from; k < to; k++) {
+            int position = offsets[k];
+            int length = buffer.getInt(position);
+            int checksum = buffer.getInt(position + 4);
+            ByteBuffer payload = buffer.slice(position + HEADER_BYTES, length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                return new DecodedRecords(transactions, lastLsn, true);
+            }
+            long lsn = payload.getLong();
+            if (lsn > afterLsn) {
+                transactions.add(decode(payload));
+            }
+            lastLsn = lsn;
+        }
+        return new DecodedRecords(transactions, lastLsn, false);
+    }
+
+    /**
+     * Records decoded by {@link #readParallel}.
+     */
+    static final class DecodedRecords {
+        private final List<Transaction> transactions;
+        private final long lastLsn;
+        private final boolean corrupt;
+
+        DecodedRecords(List<Transaction> transactions, long lastLsn, boolean corrupt) {
+            this.transactions = transactions;
+            this.lastLsn = lastLsn;
+            this.corrupt = corrupt;
+        }
+
+        /** @return the decoded transactions, in LSN order */
+        List<Transaction> getTransactions() {
+            return transactions;
+        }
+
+        /** @return the LSN of the last record read */
+        long getLastLsn() {
+            return lastLsn;
+        }
+    }
+
+    /**
+     * Reads the records of one segment.
+     *
+     * @return the length of the valid part of the segment and the LSN of its last complete record
+     */
+    private static long[] scan(Path segment, long afterLsn, EntryHandler handler) throws IOException {
+        long validLength = 0;
+        long lastLsn = 0;
+        try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            CRC32 crc = new CRC32();
+            while (buffer.remaining() >= HEADER_BYTES) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break; // Torn write at the tail
+                }
+                ByteBuffer payload = buffer.slice();
+                payload.limit(length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                long lsn = payload.getLong();
+                if (handler != null && lsn > afterLsn) {
+                    handler.accept(lsn, decode(payload));
+                }
+                buffer.position(buffer.position() + length);
+                validLength = buffer.position();
+                lastLsn = lsn;
+            }
+        }
+        return new long[]{validLength, lastLsn};
+    }
+
+    private static ByteBuffer encode(long lsn, Transaction transaction) throws IOException {
+        byte type;
+        switch (transaction.getTransactionType()) {
+            case "borrow":
+                type = transaction.getDueDate() == null ? BORROW_WITHOUT_DUE_DATE : BORROW;
+                break;
+            case "return":
+                type = RETURN;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown transaction type: " + transaction.getTransactionType());
+        }
+        byte[] userId = userIdBytes(transaction);
+        int payloadLength = 8 + 1 + 8 + 4 + 16 + 16 + 2 + userId.length + (type == BORROW ? 8 : 0);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payloadLength);
+        buffer.putInt(payloadLength);
+        buffer.putInt(0); // Checksum, filled in below
+        buffer.putLong(lsn);
+        buffer.put(type);
+        buffer.putLong(transaction.getDate().toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(transaction.getDate().getNano());
+        putId(buffer, transaction.getId());
+        putId(buffer, transaction.getBookLibraryId());
+        putString(buffer, userId);
+        if (type == BORROW) {
+            buffer.putLong(transaction.getDueDate().toEpochDay());
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_BYTES, payloadLength);
+        buffer.putInt(4, (int) crc.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Encodes the user ID of a transaction, which is stored with an unsigned 16-bit length.
+     *
+     * @throws IOException if the ID is too long to be stored
+     */
+    private static byte[] userIdBytes(Transaction transaction) throws IOException {
+        byte[] bytes = transaction.getUserID().getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("User ID too long for journal: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static Transaction decode(ByteBuffer payload) throws IOException {
+        byte type = payload.get();
+        String transactionType;
+        switch (type) {
+            case BORROW_WITHOUT_DUE_DATE:
+            case BORROW:
+                transactionType = "borrow";
+                break;
+            case RETURN:
+                transactionType = "return";
+                break;
+            default:
+                // The checksum matched, so this is a record format this version does not know
+                throw new IOException("Unknown journal record type: " + type);
+        }
+        LocalDateTime date = LocalDateTime.ofEpochSecond(payload.getLong(), payload.getInt(), ZoneOffset.UTC);
+        LibraryId transactionId = getId(payload);
+        LibraryId bookId = getId(payload);
+        String userId = getString(payload);
+        LocalDate dueDate = type == BORROW ? LocalDate.ofEpochDay(payload.getLong()) : null;
+        return new Transaction(transactionId, userId, bookId, transactionType, date, dueDate);
+    }
+
+    private static void putId(ByteBuffer buffer, LibraryId id) {
+        buffer.putLong(id.getMostSignificantBits());
+        buffer.putLong(id.getLeastSignificantBits());
+    }
+
+    private static LibraryId getId(ByteBuffer buffer) {
+        return new LibraryId(buffer.getLong(), buffer.getLong());
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path segment : stream) {
+                segments.add(segment);
+            }
+        }
+        Collections.sort(segments); // Zero-padded names sort in LSN order
+        return segments;
+    }
+
+    private static long firstLsn(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,212 @@
+package com.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plays a borrow/return trace written by {@link CatalogGenerator} against the Library Management System (LMS).
+ * <p>
+ * The same trace can drive the in-memory {@link Library} or the MySQL <code>books</code> table through
+ * {@link BookRepository}, the path used by the GUI. Trace rows refer to books by their line in the
+ * catalog file, which is mapped to book IDs after the catalog is loaded:
+ * </p>
+ * <ul>
+ *     <li>for a {@link Library}, books are listed in the order they were loaded;</li>
+ *     <li>for the database, the catalog is imported into an empty table first. Import barcodes are
+ *     time-ordered (see {@link IdGenerator#timeOrdered()}), so sorting them gives the file order.</li>
+ * </ul>
+ * <pre>
+ * java com.example.WorkloadReplayer library books.csv trace.csv
+ * java com.example.WorkloadReplayer jdbc books.csv trace.csv
+ * </pre>
+ */
+public class WorkloadReplayer {
+    /** Loan period used when the trace checks books out of the database, as in the GUI. */
+    static final int LOAN_WEEKS = 4;
+
+    /**
+     * Carries out one trace operation.
+     */
+    interface Desk {
+        /**
+         * Borrows or returns a book.
+         *
+         * @param borrow true to borrow, false to return
+         * @param userId the user named in the trace
+         * @param row    the catalog row of the book
+         * @return true if the operation succeeded
+         * @throws SQLException if a database access error occurs
+         */
+        boolean apply(boolean borrow, String userId, int row) throws SQLException;
+    }
+
+    /**
+     * Replays a trace against a library that holds the catalog.
+     *
+     * @param library the library, loaded from the catalog file the trace was generated for
+     * @param trace   the trace file
+     * @return the number of operations replayed and how long they took
+     * @throws IOException if the trace cannot be read
+     */
+    static ReplayReport replay(Library library, Path trace) throws IOException {
+        List<Book> rows = library.getBooks();
+        try {
+            return replay(trace, (borrow, userId, row) -> borrow
+                    ? library.borrowBook(userId, rows.get(row).getId())
+                    : library.returnBook(userId, rows.get(row).getId()));
+        } catch (SQLException e) {
+            throw new IllegalStateException(e); // The library does not use the database
+        }
+    }
+
+    /**
+     * Replays a trace against the <code>books</code> table.
+     *
+     * @param repository the repository to check books out and in through
+     * @param barcodes   the barcode of each catalog row, in file order
+     * @param trace      the trace file
+     * @return the number of operations replayed and how long they took
+     * @throws IOException  if the trace cannot be read
+     * @throws SQLException if a database access error occurs
+     */
+    static ReplayReport replay(BookRepository repository, List<String> barcodes, Path trace)
+            throws IOException, SQLException {
+        LocalDate dueDate = LocalDate.now().plusWeeks(LOAN_WEEKS);
+        return replay(trace, (borrow, userId, row) -> borrow
+                ? repository.checkOutBook(barcodes.get(row), dueDate)
+                : repository.checkInBook(barcodes.get(row)));
+    }
+
+    /**
+     * Reads a trace and hands each operation to a desk.
+     *
+     * @param trace the trace file
+     * @param desk  carries out the operations
+     * @return the number of operations replayed and how long they took
+     * @throws IOException  if the trace cannot be read or has an invalid line
+     * @throws SQLException if the desk fails with a database error
+     */
+    static ReplayReport replay(Path trace, Desk desk) throws IOException, SQLException {
+        long start = System.nanoTime();
+        long succeeded = 0;
+        long failed = 0;
+        try (BufferedReader in = Files.newBufferedReader(trace, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] fields = line.split(",");
+                if (fields.length != 3 || !(fields[0].equals("borrow") || fields[0].equals("return"))) {
+                    throw new IOException("Invalid trace line: " + line);
+                }
+                if (desk.apply(fields[0].equals("borrow"), fields[1], Integer.parseInt(fields[2]))) {
+                    succeeded++;
+                } else {
+                    failed++;
+                }
+            }
+        }
+        return new ReplayReport(succeeded, failed, System.nanoTime() - start);
+    }
+
+    /**
+     * Reads the barcodes of every book in the <code>books</code> table, in barcode order.
+     *
+     * @param connection the database connection to use
+     * @return the barcodes
+     * @throws SQLException if a database access error occurs
+     */
+    static List<String> readBarcodes(Connection connection) throws SQLException {
+        List<String> barcodes = new ArrayList<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT barcode FROM books ORDER BY barcode")) {
+            while (rs.next()) {
+                barcodes.add(rs.getString(1));
+            }
+        }
+        return barcodes;
+    }
+
+    /**
+     * Outcome of a replay: how many operations succeeded and failed, and how fast they ran.
+     */
+    static final class ReplayReport {
+        private final long succeeded;
+        private final long failed;
+        private final long elapsedNanos;
+
+        ReplayReport(long succeeded, long failed, long elapsedNanos) {
+            this.succeeded = succeeded;
+            this.failed = failed;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /** @return the number of borrows and returns that succeeded */
+        long getSucceeded() {
+            return succeeded;
+        }
+
+        /** @return the number of borrows of books already on loan, and other operations that were refused */
+        long getFailed() {
+            return failed;
+        }
+
+        /** @return the number of operations per second */
+        double getOperationsPerSecond() {
+            return elapsedNanos == 0 ? 0 : (succeeded + failed) * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Replayed %d operations (%d succeeded, %d refused) in %d ms at %.0f ops/sec.",
+                    succeeded + failed, succeeded, failed, elapsedNanos / 1_000_000, getOperationsPerSecond());
+        }
+    }
+
+    /**
+     * Loads a catalog into a library or the database and replays a trace against it.
+     *
+     * @param args <code>library|jdbc catalogFile traceFile</code>
+     * @throws IOException  if a file cannot be read
+     * @throws SQLException if a database access error occurs
+     */
+    public static void main(String[] args) throws IOException, SQLException {
+        if (args.length != 3 || !(args[0].equals("library") || args[0].equals("jdbc"))) {
+            System.out.println("Usage: WorkloadReplayer library|jdbc <catalogFile> <traceFile>");
+            return;
+        }
+        Path catalog = Paths.get(args[1]);
+        Path trace = Paths.get(args[2]);
+        if (args[0].equals("library")) {
+            Library library = new Library(false);
+            System.out.println(library.loadBooksInBulk(catalog.toString()));
+            System.out.println(replay(library, trace));
+            return;
+        }
+        try (Connection connection = DatabaseConnector.getConnection()) {
+            boolean empty;
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT 1 FROM books LIMIT 1")) {
+                empty = !rs.next();
+            }
+            if (!empty) {
+                System.out.println("The books table must be empty so catalog rows can be matched to barcodes.");
+                return;
+            }
+            BookRepository repository = new BookRepository(connection);
+            try (BufferedReader in = Files.newBufferedReader(catalog, StandardCharsets.UTF_8)) {
+                System.out.println(repository.importBooks(in, BookRepository.DEFAULT_BATCH_SIZE));
+            }
+            System.out.println(replay(repository, readBarcodes(connection), trace));
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for the core {@link Library} operations of the Library Management System (LMS).
+ * <p>
+ * Every benchmark runs against catalogs of 1 thousand to 10 million books. Catalog books have
+ * distinct titles, 5,000 authors and 40 genres. Lookups pick books in a fixed random order
+ * so that results can be compared between runs.
+ * </p>
+ * <p>
+ * The benchmarks live outside the application sources because they need the JMH library and its
+ * annotation processor. Compile them together with the application classes and run
+ * {@link #main(String[])}. It enables JMH's GC profiler, so each result also shows the allocation
+ * rate (<code>gc.alloc.rate.norm</code> is bytes per operation). To run one benchmark or one size:
+ * </p>
+ * <pre>
+ * java -cp ... com.example.LibraryBenchmark getBookByID -p catalogSize=1000000
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class LibraryBenchmark {
+    private static final int AUTHORS = 5_000;
+    private static final int GENRES = 40;
+    private static final int LOOKUP_KEYS = 1 << 16;
+
+    /**
+     * A library filled with a catalog of the requested size, plus keys of books in it to look up.
+     */
+    @State(Scope.Benchmark)
+    public static class Catalog {
+        @Param({"1000", "100000", "1000000", "10000000"})
+        public int catalogSize;
+
+        Library library;
+        String[] ids;
+        LibraryId[] compactIds;
+        String[] titles;
+        int next;
+
+        @Setup(Level.Trial)
+        public void fill() {
+            library = new Library(false);
+            for (int i = 0; i < catalogSize; i++) {
+                library.addBook(title(i), author(i), genre(i), true);
+            }
+            List<Book> books = library.getBooks();
+            SplittableRandom random = new SplittableRandom(42);
+            ids = new String[LOOKUP_KEYS];
+            compactIds = new LibraryId[LOOKUP_KEYS];
+            titles = new String[LOOKUP_KEYS];
+            for (int i = 0; i < LOOKUP_KEYS; i++) {
+                Book book = books.get(random.nextInt(catalogSize));
+                ids[i] = book.getBookID();
+                compactIds[i] = book.getId();
+                titles[i] = book.getTitle();
+            }
+        }
+
+        /**
+         * Gets the position of the next key to look up.
+         *
+         * @return an index into the key arrays
+         */
+        int nextKey() {
+            return next++ & (LOOKUP_KEYS - 1);
+        }
+    }
+
+    /**
+     * A catalog file of the requested size and a fresh, empty library for each load.
+     */
+    @State(Scope.Benchmark)
+    public static class CatalogFile {
+        @Param({"1000", "100000", "1000000", "10000000"})
+        public int catalogSize;
+
+        Path file;
+        Library library;
+        PrintStream console;
+
+        @Setup(Level.Trial)
+        public void write() throws IOException {
+            file = Files.createTempFile("lms-benchmark", ".csv");
+            try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                for (int i = 0; i < catalogSize; i++) {
+                    out.write(title(i) + "," + author(i) + "," + genre(i) + ",true\n");
+                }
+            }
+            console = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream())); // loadBooksFromFile prints a line
+        }
+
+        @Setup(Level.Invocation)
+        public void emptyLibrary() {
+            library = new Library(false);
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            System.setOut(console);
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Adds a book. The catalog grows by one book per operation, as it would during an import.
+     */
+    @Benchmark
+    public void addBook(Catalog catalog) {
+        int i = catalog.catalogSize + catalog.next++;
+        catalog.library.addBook(title(i), author(i), genre(i), true);
+    }
+
+    @Benchmark
+    public Book getBookByID(Catalog catalog) {
+        return catalog.library.getBookByID(catalog.ids[catalog.nextKey()]);
+    }
+
+    @Benchmark
+    public Book getBookByCompactId(Catalog catalog) {
+        return catalog.library.getBook(catalog.compactIds[catalog.nextKey()]);
+    }
+
+    @Benchmark
+    public Book searchBookByTitle(Catalog catalog) {
+        return catalog.library.searchBookByTitle(catalog.titles[catalog.nextKey()]);
+    }
+
+    /**
+     * Borrows a book and returns it again, leaving the catalog as it was.
+     */
+    @Benchmark
+    public void borrowAndReturnBook(Catalog catalog, Blackhole blackhole) {
+        String id = catalog.ids[catalog.nextKey()];
+        blackhole.consume(catalog.library.borrowBook("user1", id));
+        blackhole.consume(catalog.library.returnBook("user1", id));
+    }
+
+    /**
+     * Deletes a book by title and adds it back under a new ID, keeping the catalog size steady.
+     */
+    @Benchmark
+    public void deleteBook(Catalog catalog) {
+        Book book = catalog.library.searchBookByTitle(catalog.titles[catalog.nextKey()]);
+        catalog.library.deleteBook(book.getTitle());
+        catalog.library.addBook(book.getTitle(), book.getAuthor(), book.getGenre(), true);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public Library loadBooksFromFile(CatalogFile catalogFile) {
+        catalogFile.library.loadBooksFromFile(catalogFile.file.toString());
+        return catalogFile.library;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public BulkLoadReport loadBooksInBulk(CatalogFile catalogFile) throws IOException {
+        return catalogFile.library.loadBooksInBulk(catalogFile.file.toString());
+    }
+
+    private static String title(int i) {
+        return "Title " + i;
+    }
+
+    private static String author(int i) {
+        return "Author " + (i % AUTHORS);
+    }
+
+    private static String genre(int i) {
+        return "Genre " + (i % GENRES);
+    }
+
+    /**
+     * Runs the benchmarks with allocation profiling.
+     *
+     * @param args standard JMH command-line options, such as a benchmark name pattern or <code>-p catalogSize=1000</code>
+     * @throws CommandLineOptionException if the options cannot be parsed
+     * @throws RunnerException            if JMH fails to run the benchmarks
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(commandLine);
+        if (commandLine.getIncludes().isEmpty()) {
+            options.include(LibraryBenchmark.class.getSimpleName());
+        }
+        Options built = options.addProfiler(GCProfiler.class).build();
+        new Runner(built).run();
+    }
+}